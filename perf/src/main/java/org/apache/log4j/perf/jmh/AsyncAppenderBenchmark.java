@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.log4j.perf.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.AsyncAppender;
+import org.apache.log4j.Hierarchy;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.RingBufferAsyncAppender;
+import org.apache.log4j.spi.AppenderAttachable;
+import org.apache.log4j.spi.RootLogger;
+import org.apache.log4j.varia.NullAppender;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+   Measures the producer side of the asynchronous appenders under
+   contention. Both appenders block when full and forward to a {@link
+   NullAppender}, so the figures include the back pressure of the
+   dispatcher thread.
+
+   <p>With <code>lazyRendering</code> set, parameterized messages with
+   immutable arguments are left to the dispatcher, which here never
+   renders them.
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AsyncAppenderBenchmark {
+
+  @Param({ "AsyncAppender", "RingBufferAsyncAppender" })
+  public String appender;
+
+  @Param({ "false", "true" })
+  public boolean lazyRendering;
+
+  private AppenderSkeleton async;
+  private Logger logger;
+
+  @Setup
+  public void setUp() {
+    if("RingBufferAsyncAppender".equals(appender)) {
+      RingBufferAsyncAppender ring = new RingBufferAsyncAppender();
+      ring.setLazyRendering(lazyRendering);
+      async = ring;
+    } else {
+      AsyncAppender buffered = new AsyncAppender();
+      buffered.setLazyRendering(lazyRendering);
+      async = buffered;
+    }
+    ((AppenderAttachable) async).addAppender(new NullAppender());
+    async.activateOptions();
+
+    Hierarchy hierarchy = new Hierarchy(new RootLogger(Level.INFO));
+    logger = hierarchy.getLogger("org.apache.log4j.perf.jmh.AsyncAppenderBenchmark");
+    logger.addAppender(async);
+  }
+
+  @TearDown
+  public void tearDown() {
+    async.close();
+  }
+
+  @Benchmark
+  @Threads(1)
+  public void threads1() {
+    logger.info("Benchmark message with some text");
+  }
+
+  @Benchmark
+  @Threads(2)
+  public void threads2() {
+    logger.info("Benchmark message with some text");
+  }
+
+  @Benchmark
+  @Threads(4)
+  public void threads4() {
+    logger.info("Benchmark message with some text");
+  }
+
+  @Benchmark
+  @Threads(8)
+  public void threads8() {
+    logger.info("Benchmark message with some text");
+  }
+
+  @Benchmark
+  @Threads(16)
+  public void threads16() {
+    logger.info("Benchmark message with some text");
+  }
+
+  @Benchmark
+  @Threads(1)
+  public void parameterized1() {
+    logger.info("Benchmark message with {} and {}", "some text", Integer.valueOf(42));
+  }
+
+  @Benchmark
+  @Threads(4)
+  public void parameterized4() {
+    logger.info("Benchmark message with {} and {}", "some text", Integer.valueOf(42));
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.log4j.perf.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.MDC;
+import org.apache.log4j.NDC;
+import org.apache.log4j.PatternLayout;
+import org.apache.log4j.spi.LoggingEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+   Measures {@link MDC} and {@link NDC} operations and the cost they
+   add to events: taking the snapshots an asynchronous appender takes
+   and formatting them.
+*/
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContextBenchmark {
+
+  /** Number of MDC entries and NDC elements present. */
+  @Param({ "1", "10" })
+  public int size;
+
+  private Logger logger;
+  private PatternLayout layout;
+
+  @Setup
+  public void setUp() {
+    for(int i = 0; i < size; i++) {
+      MDC.put("key" + i, "value" + i);
+      NDC.push("context" + i);
+    }
+    logger = Logger.getLogger("org.apache.log4j.perf.jmh.ContextBenchmark");
+    layout = new PatternLayout("%X{key0} %X %x - %m%n");
+  }
+
+  @TearDown
+  public void tearDown() {
+    MDC.clear();
+    NDC.remove();
+  }
+
+  @Benchmark
+  public Object mdcPutRemove() {
+    MDC.put("request", "value");
+    Object value = MDC.get("request");
+    MDC.remove("request");
+    return value;
+  }
+
+  @Benchmark
+  public String ndcPushPop() {
+    NDC.push("request");
+    return NDC.pop();
+  }
+
+  @Benchmark
+  public String ndcGet() {
+    return NDC.get();
+  }
+
+  @Benchmark
+  public LoggingEvent snapshot() {
+    LoggingEvent event = newEvent();
+    event.getNDC();
+    event.getMDCCopy();
+    return event;
+  }
+
+  @Benchmark
+  public String format() {
+    return layout.format(newEvent());
+  }
+
+  private LoggingEvent newEvent() {
+    return new LoggingEvent(Logger.class.getName(), logger, Level.INFO,
+                            "Benchmark message with some text", null);
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.log4j.perf.jmh;
+
+import java.text.FieldPosition;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.helpers.DateFormatCache;
+import org.apache.log4j.helpers.ISO8601DateFormat;
+import org.apache.log4j.helpers.InstantDateFormat;
+import org.apache.log4j.pattern.CachedDateFormat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+   Compares the date formatters on the ISO8601 pattern, with a time
+   advancing by one millisecond per call so that the caches are
+   refreshed once every thousand calls, as with a busy logger.
+*/
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DateFormatBenchmark {
+
+  private static final String PATTERN = "yyyy-MM-dd HH:mm:ss,SSS";
+
+  private final StringBuffer stringBuffer = new StringBuffer(64);
+  private final StringBuilder stringBuilder = new StringBuilder(64);
+  private final FieldPosition pos = new FieldPosition(0);
+  private final Date date = new Date();
+
+  private SimpleDateFormat simpleDateFormat;
+  private ISO8601DateFormat iso8601DateFormat;
+  private CachedDateFormat cachedDateFormat;
+  private DateFormatCache dateFormatCache;
+  private InstantDateFormat instantDateFormat;
+  private InstantDateFormat instantDateFormatNanos;
+
+  private long time;
+
+  @Setup
+  public void setUp() {
+    simpleDateFormat = new SimpleDateFormat(PATTERN);
+    iso8601DateFormat = new ISO8601DateFormat();
+    cachedDateFormat = new CachedDateFormat(new SimpleDateFormat(PATTERN), 1000);
+    dateFormatCache = new DateFormatCache(new SimpleDateFormat(PATTERN), 1000);
+    instantDateFormat = new InstantDateFormat(PATTERN);
+    instantDateFormatNanos = new InstantDateFormat("yyyy-MM-dd HH:mm:ss,SSSSSSSSS");
+    time = System.currentTimeMillis();
+  }
+
+  @Benchmark
+  public StringBuffer simpleDateFormat() {
+    stringBuffer.setLength(0);
+    date.setTime(++time);
+    return simpleDateFormat.format(date, stringBuffer, pos);
+  }
+
+  @Benchmark
+  public StringBuffer iso8601DateFormat() {
+    stringBuffer.setLength(0);
+    date.setTime(++time);
+    return iso8601DateFormat.format(date, stringBuffer, pos);
+  }
+
+  @Benchmark
+  public StringBuilder cachedDateFormat() {
+    stringBuilder.setLength(0);
+    return cachedDateFormat.format(++time, stringBuilder);
+  }
+
+  @Benchmark
+  public StringBuilder dateFormatCache() {
+    stringBuilder.setLength(0);
+    return dateFormatCache.format(++time, stringBuilder);
+  }
+
+  @Benchmark
+  public StringBuilder instantDateFormat() {
+    stringBuilder.setLength(0);
+    return instantDateFormat.format(++time, 0, stringBuilder);
+  }
+
+  @Benchmark
+  public StringBuilder instantDateFormatNanos() {
+    stringBuilder.setLength(0);
+    return instantDateFormatNanos.format(++time, 123456, stringBuilder);
+  }
+}
@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.log4j.perf.jmh;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.FileAppender;
+import org.apache.log4j.FileChannelAppender;
+import org.apache.log4j.Hierarchy;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.PatternLayout;
+import org.apache.log4j.spi.ReusableLoggingEvent;
+import org.apache.log4j.spi.RootLogger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+   Measures logging through the file appenders, from the logger call
+   to the bytes handed to the operating system, with the TTCC pattern.
+
+   <p>The <code>*Flush</code> variants write every event out, the
+   <code>*Buffered</code> ones only when their 8K buffer is full. The
+   <code>Direct</code> variant fills four direct buffers and writes
+   them with one gathering write.
+
+   <p>With <code>reusableEvents</code> the logger passes a {@link
+   ReusableLoggingEvent}. Each iteration prints the bytes allocated per
+   call by the benchmark thread, which is the allocation check of the
+   reusable mode: it reads 0 in steady state with the
+   <code>FileChannelAppender</code> variants, while
+   <code>FileAppender</code> still allocates the <code>String</code>
+   returned by the layout. <code>-prof gc</code> reports the same
+   figure as <code>gc.alloc.rate.norm</code>.
+*/
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FileAppenderBenchmark {
+
+  @Param({
+    "FileAppenderFlush", "FileAppenderBuffered",
+    "FileChannelAppenderFlush", "FileChannelAppenderBuffered",
+    "FileChannelAppenderDirectBuffered"
+  })
+  public String appender;
+
+  @Param({"false", "true"})
+  public boolean reusableEvents;
+
+  private File file;
+  private AppenderSkeleton fileAppender;
+  private Logger logger;
+
+  private long calls;
+  private long allocatedBefore;
+
+  @Setup
+  public void setUp() throws IOException {
+    file = File.createTempFile("log4j-benchmark", ".log");
+    PatternLayout layout = new PatternLayout(PatternLayout.TTCC_CONVERSION_PATTERN);
+    boolean buffered = appender.endsWith("Buffered");
+
+    if(appender.startsWith("FileChannelAppender")) {
+      FileChannelAppender a = new FileChannelAppender();
+      a.setFile(file.getPath());
+      a.setImmediateFlush(!buffered);
+      if(appender.indexOf("Direct") >= 0) {
+        a.setDirectBuffer(true);
+        a.setBufferCount(4);
+      }
+      fileAppender = a;
+    } else {
+      FileAppender a = new FileAppender();
+      a.setFile(file.getPath());
+      a.setBufferedIO(buffered);
+      fileAppender = a;
+    }
+    fileAppender.setLayout(layout);
+    fileAppender.activateOptions();
+
+    Hierarchy hierarchy = new Hierarchy(new RootLogger(Level.INFO));
+    logger = hierarchy.getLogger("org.apache.log4j.perf.jmh.FileAppenderBenchmark");
+    logger.addAppender(fileAppender);
+    ReusableLoggingEvent.setEnabled(reusableEvents);
+  }
+
+  @TearDown
+  public void tearDown() {
+    ReusableLoggingEvent.setEnabled(false);
+    fileAppender.close();
+    file.delete();
+  }
+
+  @Setup(org.openjdk.jmh.annotations.Level.Iteration)
+  public void startAllocationCheck() {
+    calls = 0;
+    allocatedBefore = allocatedBytes();
+  }
+
+  @TearDown(org.openjdk.jmh.annotations.Level.Iteration)
+  public void endAllocationCheck() {
+    long allocated = allocatedBytes() - allocatedBefore;
+    if (calls > 0 && allocatedBefore >= 0) {
+      System.out.println("allocated " + (allocated / calls) + " bytes per call");
+    }
+  }
+
+  /**
+     Returns the bytes allocated so far by the current thread, or -1 if
+     the JVM cannot tell.
+   */
+  private static long allocatedBytes() {
+    ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if (bean instanceof com.sun.management.ThreadMXBean) {
+      return ((com.sun.management.ThreadMXBean) bean)
+        .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+    return -1;
+  }
+
+  @Benchmark
+  public void info() {
+    logger.info("Benchmark message with some text");
+    calls++;
+  }
+}
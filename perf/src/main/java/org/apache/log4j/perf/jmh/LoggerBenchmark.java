@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.log4j.perf.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Hierarchy;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.spi.LocationInfo;
+import org.apache.log4j.spi.LoggingEvent;
+import org.apache.log4j.spi.ParameterizedMessage;
+import org.apache.log4j.spi.RootLogger;
+import org.apache.log4j.varia.NullAppender;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+   Measures the logger front end: level checks that fail, events
+   dispatched by {@link org.apache.log4j.Category#callAppenders} to a
+   {@link NullAppender}, and caller location lookup.
+
+   <p>The level checks are also measured on a logger at the bottom of a
+   10-deep hierarchy whose only assigned level is the root's, the case
+   where the effective level used to be looked up through the whole
+   chain on every call.
+
+   <p>The loggers live in their own hierarchy, so the benchmark does
+   not depend on any configuration file on the class path.
+*/
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoggerBenchmark {
+
+  private static final String MESSAGE = "Benchmark message with some text";
+
+  private Logger disabled;
+  private Logger enabled;
+  private Logger deep;
+
+  @Setup
+  public void setUp() {
+    Hierarchy hierarchy = new Hierarchy(new RootLogger(Level.INFO));
+    hierarchy.getRootLogger().addAppender(new NullAppender());
+    disabled = hierarchy.getLogger("org.apache.log4j.perf.jmh.disabled");
+    enabled = hierarchy.getLogger("org.apache.log4j.perf.jmh.enabled");
+    String name = "l0";
+    hierarchy.getLogger(name);
+    for (int i = 1; i < 10; i++) {
+      name += ".l" + i;
+      hierarchy.getLogger(name);
+    }
+    deep = hierarchy.getLogger(name);
+  }
+
+  @Benchmark
+  public boolean isDebugEnabled() {
+    return disabled.isDebugEnabled();
+  }
+
+  @Benchmark
+  public void debugDisabled() {
+    disabled.debug(MESSAGE);
+  }
+
+  @Benchmark
+  public boolean isDebugEnabledDeep() {
+    return deep.isDebugEnabled();
+  }
+
+  @Benchmark
+  public void debugDisabledDeep() {
+    deep.debug(MESSAGE);
+  }
+
+  @Benchmark
+  public void infoNullAppender() {
+    enabled.info(MESSAGE);
+  }
+
+  @Benchmark
+  public void debugParameterizedDisabled() {
+    disabled.debug("Benchmark message with {} and {}", MESSAGE, Boolean.TRUE);
+  }
+
+  /**
+     The message is never rendered by the {@link NullAppender}, so it is
+     never formatted either.
+  */
+  @Benchmark
+  public void infoParameterizedNullAppender() {
+    enabled.info("Benchmark message with {} and {}", MESSAGE, Boolean.TRUE);
+  }
+
+  @Benchmark
+  public String infoParameterizedRendered() {
+    LoggingEvent event = new LoggingEvent(LoggerBenchmark.class.getName(),
+        enabled, Level.INFO,
+        new ParameterizedMessage("Benchmark message with {} and {}", MESSAGE, Boolean.TRUE),
+        null);
+    return event.getRenderedMessage();
+  }
+
+  /**
+     Looks up the caller of this class, which is the benchmark harness.
+  */
+  @Benchmark
+  public LocationInfo locationInfo() {
+    LoggingEvent event = new LoggingEvent(LoggerBenchmark.class.getName(),
+                                          enabled, Level.INFO, MESSAGE, null);
+    return event.getLocationInformation();
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.log4j.perf.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.EnhancedPatternLayout;
+import org.apache.log4j.Layout;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.MDC;
+import org.apache.log4j.NDC;
+import org.apache.log4j.PatternLayout;
+import org.apache.log4j.spi.LoggingEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+   Measures {@link PatternLayout} and {@link EnhancedPatternLayout} for
+   each conversion character on its own and for common full patterns.
+
+   <p>The event is created once, so the location converters measure
+   formatting of an already resolved {@link
+   org.apache.log4j.spi.LocationInfo}; see {@link LoggerBenchmark} for
+   the lookup itself.
+*/
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PatternLayoutBenchmark {
+
+  @Param({
+    "%c", "%c{2}", "%C", "%C{1}", "%d", "%d{ABSOLUTE}",
+    "%d{yyyy-MM-dd HH:mm:ss.SSS}", "%F", "%l", "%L", "%m", "%M", "%n",
+    "%p", "%-5p", "%r", "%t", "%x", "%X{user}", "%X", "%%",
+    "%-30c{1} %20.30m",
+    "%r [%t] %p %c %x - %m%n",
+    "%d{ISO8601} %-5p [%t] %c{2} (%F:%L) - %m%n"
+  })
+  public String pattern;
+
+  private Layout patternLayout;
+  private Layout enhancedPatternLayout;
+  private LoggingEvent event;
+  private final StringBuilder buf = new StringBuilder(256);
+
+  @Setup
+  public void setUp() {
+    patternLayout = new PatternLayout(pattern);
+    enhancedPatternLayout = new EnhancedPatternLayout(pattern);
+
+    MDC.put("user", "benchmark");
+    MDC.put("session", "0123456789abcdef");
+    NDC.push("request");
+    NDC.push("step");
+    Logger logger = Logger.getLogger("org.apache.log4j.perf.jmh.PatternLayoutBenchmark");
+    event = new LoggingEvent(PatternLayoutBenchmark.class.getName(), logger,
+                             System.currentTimeMillis(), Level.INFO,
+                             "Benchmark message with some text", null);
+    // take the snapshots and resolve the location up front
+    event.getNDC();
+    event.getMDCCopy();
+    event.getThreadName();
+    event.getLocationInformation();
+  }
+
+  @TearDown
+  public void tearDown() {
+    MDC.clear();
+    NDC.remove();
+  }
+
+  @Benchmark
+  public String patternLayout() {
+    return patternLayout.format(event);
+  }
+
+  @Benchmark
+  public StringBuilder patternLayoutToBuilder() {
+    buf.setLength(0);
+    patternLayout.format(event, buf);
+    return buf;
+  }
+
+  @Benchmark
+  public String enhancedPatternLayout() {
+    return enhancedPatternLayout.format(event);
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.log4j.perf.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.helpers.PatternConverter;
+import org.apache.log4j.helpers.PatternParser;
+import org.apache.log4j.helpers.PatternPlan;
+import org.apache.log4j.spi.LoggingEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+   Compares formatting an event by walking the converter chain built by
+   {@link PatternParser} with running the {@link PatternPlan} compiled
+   from it, as PatternLayout does.
+*/
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PatternPlanBenchmark {
+
+  @Param({
+    "%m%n",
+    "%r [%t] %p %c %x - %m%n",
+    "%d{ISO8601} %-5p [%t] %c{2} - %m%n"
+  })
+  public String pattern;
+
+  private PatternConverter head;
+  private PatternPlan plan;
+  private LoggingEvent event;
+  private final StringBuilder buf = new StringBuilder(256);
+
+  @Setup
+  public void setUp() {
+    head = new PatternParser(pattern).parse();
+    plan = PatternPlan.compile(head);
+    Logger logger = Logger.getLogger("org.apache.log4j.perf.jmh.PatternPlanBenchmark");
+    event = new LoggingEvent(Logger.class.getName(), logger,
+                             System.currentTimeMillis(), Level.INFO,
+                             "Benchmark message with some text", null);
+  }
+
+  @Benchmark
+  public StringBuilder chain() {
+    buf.setLength(0);
+    for(PatternConverter c = head; c != null; c = c.next) {
+      c.format(buf, event);
+    }
+    return buf;
+  }
+
+  @Benchmark
+  public StringBuilder plan() {
+    buf.setLength(0);
+    plan.format(buf, event);
+    return buf;
+  }
+}
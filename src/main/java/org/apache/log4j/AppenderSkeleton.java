@@ -45,7 +45,7 @@ public abstract class AppenderSkeleton implements Appender, OptionHandler {
     /**
      * There is no level threshold filtering by default.
      */
-    protected Priority threshold;
+    volatile protected Priority threshold;
 
     /**
      * It is assumed and enforced that errorHandler is never null.
@@ -56,16 +56,16 @@ public abstract class AppenderSkeleton implements Appender, OptionHandler {
      * The first filter in the filter chain. Set to <code>null</code>
      * initially.
      */
-    protected Filter headFilter;
+    volatile protected Filter headFilter;
     /**
      * The last filter in the filter chain.
      */
-    protected Filter tailFilter;
+    volatile protected Filter tailFilter;
 
     /**
      * Is this appender closed?
      */
-    protected boolean closed = false;
+    volatile protected boolean closed = false;
 
     /**
      * Create new instance.
@@ -222,14 +222,34 @@ public abstract class AppenderSkeleton implements Appender, OptionHandler {
      */
     public
     synchronized void doAppend(LoggingEvent event) {
+        if (!isAppendable(event)) {
+            return;
+        }
+        //WriterAppenderConsoleAppender(WriterAppender)append
+        // ־дJava IOл 򵥵ĽSystem.outSystem.errд뵽̨У
+        this.append(event);
+    }
+
+    /**
+     * Returns <code>true</code> if <code>event</code> should be passed
+     * to {@link #append}, that is if this appender is not closed, the
+     * event is as severe as the threshold and the filter chain does not
+     * deny it.
+     * <p/>
+     * <p>This method does not rely on any lock being held, see {@link
+     * ConcurrentAppenderSkeleton}.
+     *
+     * @since 1.2.18
+     */
+    protected boolean isAppendable(LoggingEvent event) {
         if (closed) {
             LogLog.error("Attempted to append to closed appender named [" + name + "].");
-            return;
+            return false;
         }
         //debugݵľDEBUG,  INFOݵľINFO
         // ÷־  ڵ ־Ŀĵصļ򷵻true,ͨ򷵻falseͨ;
         if (!isAsSevereAsThreshold(event.getLevel())) {
-            return;
+            return false;
         }
         // עFilterʹFilterLoggingEventʵй:
         Filter f = this.headFilter;
@@ -237,16 +257,14 @@ public abstract class AppenderSkeleton implements Appender, OptionHandler {
         while (f != null) {
             switch (f.decide(event)) {
                 case Filter.DENY:
-                    return;
+                    return false;
                 case Filter.ACCEPT:
                     break FILTER_LOOP;
                 case Filter.NEUTRAL:
                     f = f.getNext();
             }
         }
-        //WriterAppenderConsoleAppender(WriterAppender)append
-        // ־дJava IOл 򵥵ĽSystem.outSystem.errд뵽̨У
-        this.append(event);
+        return true;
     }
 
     /**
@@ -28,8 +28,11 @@ import java.util.List;
 import java.util.Map;
 
 import org.apache.log4j.helpers.AppenderAttachableImpl;
+import org.apache.log4j.helpers.ImmutableTypes;
 import org.apache.log4j.spi.AppenderAttachable;
 import org.apache.log4j.spi.LoggingEvent;
+import org.apache.log4j.spi.ParameterizedMessage;
+import org.apache.log4j.spi.ReusableLoggingEvent;
 
 
 /**
@@ -99,6 +102,21 @@ public class AsyncAppender extends AppenderSkeleton
    */
   private boolean blocking = true;
 
+  /**
+   * Are immutable messages rendered by the dispatcher.
+   */
+  private boolean lazyRendering = false;
+
+  /**
+   * Value of the <b>ImmutableClasses</b> option.
+   */
+  private String immutableClasses;
+
+  /**
+   * Tells which messages may be rendered by the dispatcher.
+   */
+  private ImmutableTypes immutableTypes = new ImmutableTypes();
+
   /**
    * Create new instance.
    */
@@ -136,7 +154,7 @@ public class AsyncAppender extends AppenderSkeleton
   /**
    * {@inheritDoc}
    */
-  public void append(final LoggingEvent event) {
+  public void append(LoggingEvent event) {
     //
     //   if dispatcher thread has died then
     //      append subsequent events synchronously
@@ -149,6 +167,9 @@ public class AsyncAppender extends AppenderSkeleton
       return;
     }
 
+    // The event outlives this call, it must not be recycled.
+    event = ReusableLoggingEvent.toImmutable(event);
+
     // Set the NDC and thread name for the calling thread as these
     // LoggingEvent fields were not set at event creation time.
     event.getNDC();
@@ -158,7 +179,13 @@ public class AsyncAppender extends AppenderSkeleton
     if (locationInfo) {
       event.getLocationInformation();
     }
-    event.getRenderedMessage();
+    Object message = event.getMessage();
+    if (!lazyRendering || !immutableTypes.isImmutable(message)) {
+      event.getRenderedMessage();
+    } else if (message instanceof ParameterizedMessage) {
+      // the dispatcher formats it, after the caller may reuse the array
+      ((ParameterizedMessage) message).copyArguments();
+    }
     event.getThrowableStrRep();
 
     synchronized (buffer) {
@@ -361,6 +388,59 @@ public class AsyncAppender extends AppenderSkeleton
     locationInfo = flag;
   }
 
+  /**
+   * The <b>LazyRendering</b> option takes a boolean value. By default, it
+   * is false and messages are rendered on the calling thread, since the
+   * objects they are rendered from may change once the logging call has
+   * returned. When true, messages known to be immutable, see {@link
+   * #setImmutableClasses}, are rendered on the dispatcher thread
+   * instead, which shortens the logging call. The thread name, NDC, MDC
+   * and throwable are taken on the calling thread in either case.
+   *
+   * @since 1.2.18
+   * @param flag true if immutable messages should be rendered by the
+   * dispatcher thread.
+   */
+  public void setLazyRendering(final boolean flag) {
+    lazyRendering = flag;
+  }
+
+  /**
+   * Gets whether immutable messages are rendered by the dispatcher thread.
+   *
+   * @since 1.2.18
+   * @return the current value of the <b>LazyRendering</b> option.
+   */
+  public boolean getLazyRendering() {
+    return lazyRendering;
+  }
+
+  /**
+   * The <b>ImmutableClasses</b> option takes a comma separated list of
+   * the names of further immutable message classes, besides strings, boxed
+   * primitives and the other classes known to {@link ImmutableTypes}.
+   * Instances of these classes, and parameterized messages whose arguments
+   * are all immutable, are rendered on the dispatcher thread when
+   * <b>LazyRendering</b> is set.
+   *
+   * @since 1.2.18
+   * @param classNames class names, may be null.
+   */
+  public void setImmutableClasses(final String classNames) {
+    immutableClasses = classNames;
+    immutableTypes = new ImmutableTypes(classNames);
+  }
+
+  /**
+   * Gets the names of further immutable message classes.
+   *
+   * @since 1.2.18
+   * @return the current value of the <b>ImmutableClasses</b> option.
+   */
+  public String getImmutableClasses() {
+    return immutableClasses;
+  }
+
   /**
    * Sets the number of messages allowed in the event buffer
    * before the calling thread is blocked (if blocking is true)
@@ -423,8 +503,9 @@ public class AsyncAppender extends AppenderSkeleton
 
   /**
    * Summary of discarded logging events for a logger.
+   * Also used by {@link RingBufferAsyncAppender}.
    */
-  private static final class DiscardSummary {
+  static final class DiscardSummary {
     /**
      * First event of the highest severity.
      */
@@ -581,10 +662,8 @@ public class AsyncAppender extends AppenderSkeleton
           //   process events after lock on buffer is released.
           //
           if (events != null) {
-            for (int i = 0; i < events.length; i++) {
-              synchronized (appenders) {
-                appenders.appendLoopOnAppenders(events[i]);
-              }
+            synchronized (appenders) {
+              appenders.appendLoopOnAppenders(events, events.length);
             }
           }
         }
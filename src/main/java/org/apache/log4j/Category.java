@@ -33,6 +33,7 @@ package org.apache.log4j;
 
 import org.apache.log4j.spi.AppenderAttachable;
 import org.apache.log4j.spi.LoggingEvent;
+import org.apache.log4j.spi.ReusableLoggingEvent;
 import org.apache.log4j.spi.LoggerRepository;
 import org.apache.log4j.spi.HierarchyEventListener;
 import org.apache.log4j.helpers.NullEnumeration;
@@ -42,6 +43,7 @@ import java.util.Enumeration;
 import java.util.MissingResourceException;
 import java.util.ResourceBundle;
 import java.util.Vector;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 /**
@@ -105,9 +107,27 @@ public class Category implements AppenderAttachable {
      * The assigned level of this category.  The
      * <code>level</code> variable need not be assigned a value in
      * which case it is inherited form the hierarchy.
+     *
+     * <p>Sub-classes should change it through {@link #setLevel}, which
+     * also invalidates the cached effective levels.
      */
     volatile protected Level level;
 
+    /**
+     * Incremented whenever a level, a threshold or a parent link
+     * changes, which invalidates the effective levels cached by all
+     * categories.
+     */
+    private static final AtomicInteger levelGeneration = new AtomicInteger(1);
+
+    /**
+     * The effective level of this category, raised to the threshold of
+     * its {@link Hierarchy}, in the low 32 bits and the value of
+     * {@link #levelGeneration} it was computed for in the high 32 bits.
+     * See {@link #isEnabled(int)}.
+     */
+    private volatile long levelCache;
+
     /**
      * The parent of this category. All categories have at least one
      * ancestor which is the root category.
@@ -129,7 +149,9 @@ public class Category implements AppenderAttachable {
     // ͬʱдļͿ̨AppenderΪ˹Appender
     // Log4JAppenderAttachableӿڣ˼ڹAppenderʵķ
     // ЩAppenderAttachableImplʵ--c.aai
-    AppenderAttachableImpl aai;
+    // The attached appenders are published as a copy-on-write snapshot,
+    // see callAppenders.
+    volatile AppenderAttachableImpl aai;
 
     /**
      * Additivity is set to true by default, that is children inherit
@@ -140,7 +162,7 @@ public class Category implements AppenderAttachable {
      * have their additivity flag set to <code>false</code> too. See
      * the user manual for more details.
      */
-    protected boolean additive = true;
+    volatile protected boolean additive = true;
 
     /**
      * This constructor created a new <code>Category</code> instance and
@@ -190,22 +212,37 @@ public class Category implements AppenderAttachable {
     }
 
 
+    /**
+     * Call the appenders in the hierarchy starting at
+     * <code>this</code>.  If no appenders could be found, emit a
+     * warning.
+     * <p/>
+     * <p>This method calls all the appenders inherited from the
+     * hierarchy circumventing any evaluation of whether to log or not
+     * to log the particular log request.
+     * <p/>
+     * <p>No lock is taken on the categories of the chain: each one
+     * exposes its appenders as an immutable snapshot which
+     * {@link #addAppender} and {@link #removeAppender} replace
+     * atomically.
+     *
+     * @param event the event to log.
+     */
     public void callAppenders(LoggingEvent event) {
         int writes = 0;
         for (Category c = this; c != null; c = c.parent) {
-            synchronized (c) {
-                if (c.aai != null) {
-                    //ʵʿоҪ־Ϣͬʱдͬط
-                    // ͬʱдļͿ̨AppenderΪ˹Appender
-                    // Log4JAppenderAttachableӿڣ˼ڹAppenderʵķ
-                    // ЩAppenderAttachableImplʵ--c.aai
-                    writes += c.aai.appendLoopOnAppenders(event);
-                }
-                //loggeradditiveΪtrueøappender־additiveĬΪtrue
-                //´Կ,additiveΪtrue,ø־appenderֱrootadditiveΪfalseȣ
-                if (!c.additive) {
-                    break;
-                }
+            AppenderAttachableImpl appenders = c.aai;
+            if (appenders != null) {
+                //ʵʿоҪ־Ϣͬʱдͬط
+                // ͬʱдļͿ̨AppenderΪ˹Appender
+                // Log4JAppenderAttachableӿڣ˼ڹAppenderʵķ
+                // ЩAppenderAttachableImplʵ--c.aai
+                writes += appenders.appendLoopOnAppenders(event);
+            }
+            //loggeradditiveΪtrueøappender־additiveĬΪtrue
+            //´Կ,additiveΪtrue,ø־appenderֱrootadditiveΪfalseȣ
+            if (!c.additive) {
+                break;
             }
         }
 
@@ -237,15 +274,9 @@ public class Category implements AppenderAttachable {
      * debugӡ־ôroot־õļΪdebug򲻻ӡ־
      */
     public void debug(Object message) {
-        // repositorylog4jʼȡLoggerʱֵģ
-        // LogManager̬еĴ Hierarchy־
-
-        //жHierarchyõ־(ΪALL)ǷDebugֱӷأ
-        if (repository.isDisabled(Level.DEBUG_INT)){
-            return;
-        }
-        //debugж  Debug  root  rootüDebugӡ־
-        if (Level.DEBUG.isGreaterOrEqual(this.getEffectiveLevel())) {
+        //жHierarchyõ־(ΪALL)Լ Debug  root
+        //һDebugӡ־ѻlevelCacheУisEnabled
+        if (isEnabled(Level.DEBUG_INT)) {
             forcedLog(FQCN, Level.DEBUG, message, null);
         }
     }
@@ -262,9 +293,7 @@ public class Category implements AppenderAttachable {
      * @param t       the exception to log, including its stack trace.
      */
     public void debug(Object message, Throwable t) {
-        if (repository.isDisabled(Level.DEBUG_INT))
-            return;
-        if (Level.DEBUG.isGreaterOrEqual(this.getEffectiveLevel()))
+        if (isEnabled(Level.DEBUG_INT))
             forcedLog(FQCN, Level.DEBUG, message, t);
     }
 
@@ -288,9 +317,7 @@ public class Category implements AppenderAttachable {
      * @param message the message object to log
      */
     public void error(Object message) {
-        if (repository.isDisabled(Level.ERROR_INT))
-            return;
-        if (Level.ERROR.isGreaterOrEqual(this.getEffectiveLevel()))
+        if (isEnabled(Level.ERROR_INT))
             forcedLog(FQCN, Level.ERROR, message, null);
     }
 
@@ -305,9 +332,7 @@ public class Category implements AppenderAttachable {
      * @param t       the exception to log, including its stack trace.
      */
     public void error(Object message, Throwable t) {
-        if (repository.isDisabled(Level.ERROR_INT))
-            return;
-        if (Level.ERROR.isGreaterOrEqual(this.getEffectiveLevel()))
+        if (isEnabled(Level.ERROR_INT))
             forcedLog(FQCN, Level.ERROR, message, t);
 
     }
@@ -347,9 +372,7 @@ public class Category implements AppenderAttachable {
      * @param message the message object to log
      */
     public void fatal(Object message) {
-        if (repository.isDisabled(Level.FATAL_INT))
-            return;
-        if (Level.FATAL.isGreaterOrEqual(this.getEffectiveLevel()))
+        if (isEnabled(Level.FATAL_INT))
             forcedLog(FQCN, Level.FATAL, message, null);
     }
 
@@ -364,22 +387,57 @@ public class Category implements AppenderAttachable {
      * @param t       the exception to log, including its stack trace.
      */
     public void fatal(Object message, Throwable t) {
-        if (repository.isDisabled(Level.FATAL_INT))
-            return;
-        if (Level.FATAL.isGreaterOrEqual(this.getEffectiveLevel()))
+        if (isEnabled(Level.FATAL_INT))
             forcedLog(FQCN, Level.FATAL, message, t);
     }
 
 
     /**
      * һ־¼
+     * <p/>
+     * <p>If {@link ReusableLoggingEvent reusable events} are enabled and
+     * all the appenders reached accept them, the calling thread's event
+     * is reset and passed to the appenders instead of a new one.
      */
     protected void forcedLog(String fqcn, Priority level, Object message, Throwable t) {
+        if (ReusableLoggingEvent.isEnabled() && acceptsReusableEvents()) {
+            ReusableLoggingEvent event = ReusableLoggingEvent.acquire(fqcn, this, level, message, t);
+            if (event != null) {
+                try {
+                    callAppenders(event);
+                } finally {
+                    event.release();
+                }
+                return;
+            }
+        }
         //LoggingEventʵ:Ƕһ־¼ȡϢĳ
         callAppenders(new LoggingEvent(fqcn, this, level, message, t));
     }
 
 
+    /**
+     * Returns true if every appender {@link #callAppenders} would call
+     * {@link ReusableLoggingEvent#accepts accepts} reusable events.
+     */
+    private boolean acceptsReusableEvents() {
+        for (Category c = this; c != null; c = c.parent) {
+            AppenderAttachableImpl appenders = c.aai;
+            if (appenders != null) {
+                Appender[] array = appenders.getAppenderArray();
+                for (int i = 0; i < array.length; i++) {
+                    if (!ReusableLoggingEvent.accepts(array[i])) {
+                        return false;
+                    }
+                }
+            }
+            if (!c.additive) {
+                break;
+            }
+        }
+        return true;
+    }
+
     /**
      * Get the additivity flag for this Category instance.
      */
@@ -431,6 +489,48 @@ public class Category implements AppenderAttachable {
         return null; // If reached will cause an NullPointerException.
     }
 
+    /**
+     * Is a request of the given level enabled, taking both the
+     * threshold of the repository and the effective level of this
+     * category into account?
+     * <p/>
+     * <p>When the repository is a {@link Hierarchy}, the larger of the
+     * two is cached, so that the check is a comparison against a
+     * field as long as no level has changed since.
+     */
+    final boolean isEnabled(int level) {
+        long cache = levelCache;
+        if ((int) (cache >>> 32) == levelGeneration.get()) {
+            return level >= (int) cache;
+        }
+        if (repository.isDisabled(level)) {
+            return false;
+        }
+        return level >= updateLevelCache();
+    }
+
+    private int updateLevelCache() {
+        // read the generation first, a change made while the chain is
+        // walked then leaves the cache stale
+        int generation = levelGeneration.get();
+        int effective = getEffectiveLevel().level;
+        if (repository instanceof Hierarchy) {
+            int threshold = ((Hierarchy) repository).thresholdInt;
+            if (threshold > effective) {
+                effective = threshold;
+            }
+            levelCache = ((long) generation << 32) | (effective & 0xFFFFFFFFL);
+        }
+        return effective;
+    }
+
+    /**
+     * Invalidates the effective levels cached by all categories.
+     */
+    static void levelsChanged() {
+        levelGeneration.incrementAndGet();
+    }
+
     /**
      * @deprecated Please use the the {@link #getEffectiveLevel} method
      * instead.
@@ -614,15 +714,9 @@ public class Category implements AppenderAttachable {
      * infoӡ־ôroot־õļΪdebug / info򲻻ӡ־
      */
     public void info(Object message) {
-        // repositorylog4jʼȡLoggerʱֵģ
-        // LogManager̬еĴ Hierarchy־
-
-        //жHierarchyõ־(ΪALL)Ƿinfoֱӷأ
-        if (repository.isDisabled(Level.INFO_INT)) {
-            return;
-        }
-        //infoж  Info  root  rootüinfoӡ־
-        if (Level.INFO.isGreaterOrEqual(this.getEffectiveLevel())) {
+        //жHierarchyõ־(ΪALL)Լ Info  root
+        //һinfoӡ־
+        if (isEnabled(Level.INFO_INT)) {
             // һ־¼ʼ־ӡز
             // ݲΪ  Category.class.getName()INFO־־ӡݣnull
             forcedLog(FQCN, Level.INFO, message, null);
@@ -640,9 +734,7 @@ public class Category implements AppenderAttachable {
      * @param t       the exception to log, including its stack trace.
      */
     public void info(Object message, Throwable t) {
-        if (repository.isDisabled(Level.INFO_INT))
-            return;
-        if (Level.INFO.isGreaterOrEqual(this.getEffectiveLevel()))
+        if (isEnabled(Level.INFO_INT))
             forcedLog(FQCN, Level.INFO, message, t);
     }
 
@@ -650,10 +742,11 @@ public class Category implements AppenderAttachable {
      * Is the appender passed as parameter attached to this category?
      */
     public boolean isAttached(Appender appender) {
-        if (appender == null || aai == null)
+        AppenderAttachableImpl attached = aai;
+        if (appender == null || attached == null)
             return false;
         else {
-            return aai.isAttached(appender);
+            return attached.isAttached(appender);
         }
     }
 
@@ -692,9 +785,7 @@ public class Category implements AppenderAttachable {
      * enabled, <code>false</code> otherwise.
      */
     public boolean isDebugEnabled() {
-        if (repository.isDisabled(Level.DEBUG_INT))
-            return false;
-        return Level.DEBUG.isGreaterOrEqual(this.getEffectiveLevel());
+        return isEnabled(Level.DEBUG_INT);
     }
 
     /**
@@ -706,9 +797,7 @@ public class Category implements AppenderAttachable {
      * @return boolean True if this category is enabled for <code>level</code>.
      */
     public boolean isEnabledFor(Priority level) {
-        if (repository.isDisabled(level.level))
-            return false;
-        return level.isGreaterOrEqual(this.getEffectiveLevel());
+        return isEnabled(level.level);
     }
 
     /**
@@ -719,9 +808,7 @@ public class Category implements AppenderAttachable {
      * for level info, <code>false</code> otherwise.
      */
     public boolean isInfoEnabled() {
-        if (repository.isDisabled(Level.INFO_INT))
-            return false;
-        return Level.INFO.isGreaterOrEqual(this.getEffectiveLevel());
+        return isEnabled(Level.INFO_INT);
     }
 
 
@@ -734,10 +821,7 @@ public class Category implements AppenderAttachable {
      * @since 0.8.4
      */
     public void l7dlog(Priority priority, String key, Throwable t) {
-        if (repository.isDisabled(priority.level)) {
-            return;
-        }
-        if (priority.isGreaterOrEqual(this.getEffectiveLevel())) {
+        if (isEnabled(priority.level)) {
             String msg = getResourceBundleString(key);
             // if message corresponding to 'key' could not be found in the
             // resource bundle, then default to 'key'.
@@ -758,10 +842,7 @@ public class Category implements AppenderAttachable {
      * @since 0.8.4
      */
     public void l7dlog(Priority priority, String key, Object[] params, Throwable t) {
-        if (repository.isDisabled(priority.level)) {
-            return;
-        }
-        if (priority.isGreaterOrEqual(this.getEffectiveLevel())) {
+        if (isEnabled(priority.level)) {
             String pattern = getResourceBundleString(key);
             String msg;
             if (pattern == null)
@@ -776,10 +857,7 @@ public class Category implements AppenderAttachable {
      * This generic form is intended to be used by wrappers.
      */
     public void log(Priority priority, Object message, Throwable t) {
-        if (repository.isDisabled(priority.level)) {
-            return;
-        }
-        if (priority.isGreaterOrEqual(this.getEffectiveLevel()))
+        if (isEnabled(priority.level))
             forcedLog(FQCN, priority, message, t);
     }
 
@@ -787,10 +865,7 @@ public class Category implements AppenderAttachable {
      * This generic form is intended to be used by wrappers.
      */
     public void log(Priority priority, Object message) {
-        if (repository.isDisabled(priority.level)) {
-            return;
-        }
-        if (priority.isGreaterOrEqual(this.getEffectiveLevel()))
+        if (isEnabled(priority.level))
             forcedLog(FQCN, priority, message, null);
     }
 
@@ -804,10 +879,7 @@ public class Category implements AppenderAttachable {
      * @param t          The throwable of the logging request, may be null.
      */
     public void log(String callerFQCN, Priority level, Object message, Throwable t) {
-        if (repository.isDisabled(level.level)) {
-            return;
-        }
-        if (level.isGreaterOrEqual(this.getEffectiveLevel())) {
+        if (isEnabled(level.level)) {
             forcedLog(callerFQCN, level, message, t);
         }
     }
@@ -838,16 +910,19 @@ public class Category implements AppenderAttachable {
      */
     synchronized
     public void removeAllAppenders() {
-        if (aai != null) {
+        AppenderAttachableImpl attached = aai;
+        if (attached != null) {
+            // unpublish first so that no thread in callAppenders picks up
+            // an appender which is about to be closed
+            aai = null;
             Vector appenders = new Vector();
-            for (Enumeration iter = aai.getAllAppenders(); iter != null && iter.hasMoreElements(); ) {
+            for (Enumeration iter = attached.getAllAppenders(); iter != null && iter.hasMoreElements(); ) {
                 appenders.add(iter.nextElement());
             }
-            aai.removeAllAppenders();
+            attached.removeAllAppenders();
             for (Enumeration iter = appenders.elements(); iter.hasMoreElements(); ) {
                 fireRemoveAppenderEvent((Appender) iter.nextElement());
             }
-            aai = null;
         }
     }
 
@@ -915,6 +990,7 @@ public class Category implements AppenderAttachable {
      */
     public void setLevel(Level level) {
         this.level = level;
+        levelsChanged();
     }
 
 
@@ -927,6 +1003,7 @@ public class Category implements AppenderAttachable {
      */
     public void setPriority(Priority priority) {
         this.level = (Level) priority;
+        levelsChanged();
     }
 
 
@@ -986,10 +1063,7 @@ public class Category implements AppenderAttachable {
      * @param message the message object to log.
      */
     public void warn(Object message) {
-        if (repository.isDisabled(Level.WARN_INT))
-            return;
-
-        if (Level.WARN.isGreaterOrEqual(this.getEffectiveLevel()))
+        if (isEnabled(Level.WARN_INT))
             forcedLog(FQCN, Level.WARN, message, null);
     }
 
@@ -1004,9 +1078,7 @@ public class Category implements AppenderAttachable {
      * @param t       the exception to log, including its stack trace.
      */
     public void warn(Object message, Throwable t) {
-        if (repository.isDisabled(Level.WARN_INT))
-            return;
-        if (Level.WARN.isGreaterOrEqual(this.getEffectiveLevel()))
+        if (isEnabled(Level.WARN_INT))
             forcedLog(FQCN, Level.WARN, message, t);
     }
 }
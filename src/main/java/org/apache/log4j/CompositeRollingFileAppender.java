@@ -0,0 +1,541 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.log4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.apache.log4j.helpers.CountingQuietWriter;
+import org.apache.log4j.helpers.FileCompressor;
+import org.apache.log4j.helpers.LogLog;
+import org.apache.log4j.helpers.OptionConverter;
+import org.apache.log4j.spi.CompressionCodec;
+import org.apache.log4j.spi.ErrorCode;
+import org.apache.log4j.spi.LoggingEvent;
+import org.apache.log4j.spi.TriggeringPolicy;
+
+/**
+   CompositeRollingFileAppender extends {@link FileAppender} to roll
+   the log file over on a schedule, when it reaches a size, or both.
+
+   <p>The <b>RollingStyle</b> option selects the triggering policies:
+   "time" rolls over like {@link DailyRollingFileAppender} according
+   to <b>DatePattern</b>, "size" like {@link RollingFileAppender}
+   according to <b>MaxFileSize</b>, and "both", the default, does
+   whichever comes first, for example daily files which are also
+   split when they get too large. Any other {@link TriggeringPolicy}
+   can be set with the <b>TriggeringPolicy</b> option.
+
+   <p>Rolled files are named after <code>File</code>, followed by the
+   date of their oldest event formatted with <b>DatePattern</b> unless
+   rolling only by size, and followed by an index unless rolling only
+   by time. With the defaults, <code>app.log</code> rolls over to
+   <code>app.log.2026-10-16.1</code>, <code>app.log.2026-10-16.2</code>
+   and so on. Old files are kept unless <b>MaxBackupIndex</b> is set.
+
+   <p>The policies only compare the time stamp and the size of each
+   event to values computed when the file was opened, so no calendar
+   computation nor date formatting takes place between rollovers.
+
+   @since 1.2.18
+ */
+public class CompositeRollingFileAppender extends FileAppender {
+
+  static final String TIME_STYLE = "time";
+  static final String SIZE_STYLE = "size";
+  static final String BOTH_STYLE = "both";
+
+  /**
+     The date pattern, daily rollover by default.
+   */
+  protected String datePattern = "'.'yyyy-MM-dd";
+
+  /**
+     The default maximum file size is 10MB.
+   */
+  protected long maxFileSize = 10*1024*1024;
+
+  /**
+     Number of rolled files kept, -1 by default to keep them all.
+   */
+  protected int maxBackupIndex = -1;
+
+  /**
+     The rolling style, "both" by default.
+   */
+  protected String rollingStyle = BOTH_STYLE;
+
+  /**
+     Value of the <b>Compression</b> option.
+   */
+  protected String compression;
+
+  private CompressionCodec codec;
+
+  /**
+     Policy set with the <b>TriggeringPolicy</b> option, if any.
+   */
+  private TriggeringPolicy triggeringPolicy;
+
+  /**
+     The policies in use, set by {@link #activateOptions}.
+   */
+  private TriggeringPolicy[] policies;
+
+  /**
+     Formats the date in rolled file names, <code>null</code> when
+     rolling only by size.
+   */
+  private SimpleDateFormat sdf;
+
+  /**
+     Whether rolled file names always end with an index.
+   */
+  private boolean indexed;
+
+  /**
+     Time of the oldest event in the current file.
+   */
+  private long fileStartTime;
+
+  /**
+     Name and last index of the last rolled file.
+   */
+  private String lastBase;
+  private int lastIndex;
+
+  /**
+     Rolled files, oldest first, without the codec extension. Filled in
+     by the first rollover when <b>MaxBackupIndex</b> is set.
+   */
+  private LinkedList backups;
+
+  /**
+     Rolled files queued for compression. They are deleted behind the
+     queued compressions rather than directly.
+   */
+  private final HashSet compressing = new HashSet();
+
+  /**
+     The default constructor does nothing.
+   */
+  public
+  CompositeRollingFileAppender() {
+  }
+
+  /**
+     The <b>DatePattern</b> option takes a string in the format
+     expected by {@link SimpleDateFormat}. It determines the time based
+     rollover schedule as for {@link DailyRollingFileAppender}, and the
+     date in rolled file names.
+   */
+  public
+  void setDatePattern(String datePattern) {
+    this.datePattern = datePattern;
+  }
+
+  /**
+     Returns the value of the <b>DatePattern</b> option.
+   */
+  public
+  String getDatePattern() {
+    return datePattern;
+  }
+
+  /**
+     The <b>MaxFileSize</b> option takes a size in bytes, optionally
+     followed by "KB", "MB" or "GB", 10MB by default.
+   */
+  public
+  void setMaxFileSize(String value) {
+    maxFileSize = OptionConverter.toFileSize(value, maxFileSize + 1);
+  }
+
+  /**
+     Sets the maximum file size in bytes, see {@link #setMaxFileSize}.
+   */
+  public
+  void setMaximumFileSize(long maxFileSize) {
+    this.maxFileSize = maxFileSize;
+  }
+
+  /**
+     Returns the maximum file size in bytes.
+   */
+  public
+  long getMaximumFileSize() {
+    return maxFileSize;
+  }
+
+  /**
+     The <b>MaxBackupIndex</b> option sets how many rolled files are
+     kept, the oldest being deleted after each rollover. Rolled files
+     left by previous runs count, oldest by modification time. The
+     default, -1, keeps all rolled files.
+   */
+  public
+  void setMaxBackupIndex(int maxBackups) {
+    this.maxBackupIndex = maxBackups;
+  }
+
+  /**
+     Returns the value of the <b>MaxBackupIndex</b> option.
+   */
+  public
+  int getMaxBackupIndex() {
+    return maxBackupIndex;
+  }
+
+  /**
+     The <b>RollingStyle</b> option takes one of "time", "size" or
+     "both", the default.
+   */
+  public
+  void setRollingStyle(String rollingStyle) {
+    String style = rollingStyle == null ? null : rollingStyle.trim();
+    if (TIME_STYLE.equalsIgnoreCase(style)) {
+      this.rollingStyle = TIME_STYLE;
+    } else if (SIZE_STYLE.equalsIgnoreCase(style)) {
+      this.rollingStyle = SIZE_STYLE;
+    } else if (BOTH_STYLE.equalsIgnoreCase(style)) {
+      this.rollingStyle = BOTH_STYLE;
+    } else {
+      LogLog.warn("Unknown RollingStyle [" + rollingStyle
+                  + "], using \"" + BOTH_STYLE + "\".");
+      this.rollingStyle = BOTH_STYLE;
+    }
+  }
+
+  /**
+     Returns the value of the <b>RollingStyle</b> option.
+   */
+  public
+  String getRollingStyle() {
+    return rollingStyle;
+  }
+
+  /**
+     Sets a triggering policy replacing those of <b>RollingStyle</b>,
+     which then only determines how rolled files are named.
+   */
+  public
+  void setTriggeringPolicy(TriggeringPolicy triggeringPolicy) {
+    this.triggeringPolicy = triggeringPolicy;
+  }
+
+  /**
+     Returns the policy set with {@link #setTriggeringPolicy}, if any.
+   */
+  public
+  TriggeringPolicy getTriggeringPolicy() {
+    return triggeringPolicy;
+  }
+
+  /**
+     The <b>Compression</b> option selects how rolled files are
+     compressed in the background, as for {@link
+     DailyRollingFileAppender#setCompression}.
+   */
+  public
+  void setCompression(String compression) {
+    this.compression = compression;
+    this.codec = FileCompressor.getCodec(compression);
+  }
+
+  /**
+     Returns the value of the <b>Compression</b> option.
+   */
+  public
+  String getCompression() {
+    return compression;
+  }
+
+  public
+  void activateOptions() {
+    boolean byTime = !SIZE_STYLE.equals(rollingStyle) && datePattern != null;
+    sdf = byTime ? new SimpleDateFormat(datePattern) : null;
+    indexed = !TIME_STYLE.equals(rollingStyle) || triggeringPolicy != null;
+    if (triggeringPolicy != null) {
+      triggeringPolicy.activateOptions();
+      policies = new TriggeringPolicy[] { triggeringPolicy };
+    } else {
+      List list = new ArrayList(2);
+      if (byTime) {
+        list.add(new TimeBasedTriggeringPolicy(datePattern));
+      }
+      if (!TIME_STYLE.equals(rollingStyle)) {
+        list.add(new SizeBasedTriggeringPolicy(maxFileSize));
+      }
+      policies = (TriggeringPolicy[]) list.toArray(new TriggeringPolicy[list.size()]);
+    }
+    lastBase = null;
+    backups = null;
+    super.activateOptions();
+  }
+
+  public
+  synchronized
+  void setFile(String fileName, boolean append, boolean bufferedIO, int bufferSize)
+                                                                 throws IOException {
+    super.setFile(fileName, append, bufferedIO, bufferSize);
+    File f = new File(fileName);
+    long length = append ? f.length() : 0;
+    ((CountingQuietWriter) qw).setCount(length);
+    startFile(length > 0 ? f.lastModified() : System.currentTimeMillis());
+  }
+
+  /**
+     Records <code>time</code> as the time of the oldest event in the
+     current file and tells the policies.
+   */
+  private
+  void startFile(long time) {
+    fileStartTime = time;
+    if (policies != null) {
+      for (int i = 0; i < policies.length; i++) {
+        policies[i].fileOpened(time);
+      }
+    }
+  }
+
+  protected
+  void setQWForFiles(Writer writer) {
+     this.qw = new CountingQuietWriter(writer, errorHandler);
+  }
+
+  /**
+     Rolls the file over before writing <code>event</code> if one of
+     the policies says so. An empty file is kept, and the new file
+     starts at the time of <code>event</code> rather than at the
+     current time, which matters when events are written late.
+   */
+  protected
+  void subAppend(LoggingEvent event) {
+    if (policies != null && fileName != null && qw != null) {
+      long length = ((CountingQuietWriter) qw).getCount();
+      for (int i = 0; i < policies.length; i++) {
+        if (policies[i].isTriggeringEvent(event, length)) {
+          if (length > 0) {
+            rollOver();
+          }
+          startFile(event.getTimeStamp());
+          break;
+        }
+      }
+    }
+    super.subAppend(event);
+  }
+
+  /**
+     Renames the file to the next rolled file name and opens a new
+     one. If the rename fails, the current file is reopened and no
+     size based rollover is attempted before it has grown by
+     <b>MaxFileSize</b> again.
+   */
+  public // synchronization not necessary since doAppend is already synched
+  void rollOver() {
+    if (maxBackupIndex >= 0 && backups == null) {
+      findBackups();
+    }
+    File target = nextTarget();
+    this.closeFile(); // keep windows happy.
+    File file = new File(fileName);
+    LogLog.debug("Renaming file " + file + " to " + target);
+    boolean renameSucceeded = file.renameTo(target);
+    if (!renameSucceeded) {
+      LogLog.error("Failed to rename [" + fileName + "] to [" + target + "].");
+    }
+    try {
+      // reopen with append = true if the rename failed
+      this.setFile(fileName, !renameSucceeded, bufferedIO, bufferSize);
+      if (!renameSucceeded) {
+        ((CountingQuietWriter) qw).setCount(0);
+      }
+    }
+    catch(IOException e) {
+        if (e instanceof InterruptedIOException) {
+            Thread.currentThread().interrupt();
+        }
+        errorHandler.error("setFile(" + fileName + ", " + !renameSucceeded
+                           + ") call failed.", e, ErrorCode.FILE_OPEN_FAILURE);
+    }
+    if (!renameSucceeded) {
+      return;
+    }
+    if (codec != null) {
+      if (FileCompressor.compressInBackground(target, codec)) {
+        compressing.add(target);
+      } else {
+        LogLog.warn("Too many files waiting for compression, leaving ["
+                    + target + "] uncompressed.");
+      }
+    }
+    if (backups != null) {
+      backups.addLast(target);
+      deleteOldBackups();
+    }
+  }
+
+  /**
+     Deletes the oldest rolled files beyond <b>MaxBackupIndex</b>. A
+     file queued for compression is deleted once compressed, or on a
+     later rollover if the compression queue is full.
+   */
+  private
+  void deleteOldBackups() {
+    while (backups.size() > maxBackupIndex) {
+      File oldest = (File) backups.getFirst();
+      if (codec != null && compressing.contains(oldest)) {
+        if (!FileCompressor.deleteInBackground(oldest, codec)) {
+          break;
+        }
+        compressing.remove(oldest);
+      } else {
+        LogLog.debug("Deleting file " + oldest);
+        oldest.delete();
+        if (codec != null) {
+          new File(oldest.getPath() + codec.getFileExtension()).delete();
+        }
+      }
+      backups.removeFirst();
+    }
+  }
+
+  /**
+     Lists the rolled files left by previous runs, oldest first.
+   */
+  private
+  void findBackups() {
+    backups = new LinkedList();
+    File file = new File(fileName).getAbsoluteFile();
+    File dir = file.getParentFile();
+    File[] files = dir == null ? null : dir.listFiles();
+    if (files == null) {
+      return;
+    }
+    String prefix = file.getName();
+    List found = new ArrayList();
+    for (int i = 0; i < files.length; i++) {
+      String name = files[i].getName();
+      if (name.length() > prefix.length() && name.startsWith(prefix)
+          && isRolledSuffix(name.substring(prefix.length()))) {
+        found.add(files[i]);
+      }
+    }
+    Collections.sort(found, new Comparator() {
+        public int compare(Object o1, Object o2) {
+          long t1 = ((File) o1).lastModified();
+          long t2 = ((File) o2).lastModified();
+          return t1 < t2 ? -1 : (t1 == t2 ? 0 : 1);
+        }
+      });
+    HashSet names = new HashSet();
+    for (int i = 0; i < found.size(); i++) {
+      String suffix = ((File) found.get(i)).getName().substring(prefix.length());
+      if (codec != null && suffix.endsWith(codec.getFileExtension())) {
+        suffix = suffix.substring(0, suffix.length() - codec.getFileExtension().length());
+      }
+      // a file may be present both compressed and not
+      if (names.add(suffix)) {
+        backups.addLast(new File(fileName + suffix));
+      }
+    }
+  }
+
+  /**
+     Returns true if <code>suffix</code>, following the file name, is
+     that of a rolled file: a date formatted with <b>DatePattern</b>,
+     an index, or both.
+   */
+  private
+  boolean isRolledSuffix(String suffix) {
+    if (codec != null && suffix.endsWith(codec.getFileExtension())) {
+      suffix = suffix.substring(0, suffix.length() - codec.getFileExtension().length());
+    }
+    if (isDate(suffix)) {
+      return true;
+    }
+    int dot = suffix.lastIndexOf('.');
+    if (dot < 0 || dot == suffix.length() - 1) {
+      return false;
+    }
+    for (int i = dot + 1; i < suffix.length(); i++) {
+      if (!Character.isDigit(suffix.charAt(i))) {
+        return false;
+      }
+    }
+    String date = suffix.substring(0, dot);
+    return sdf == null ? date.length() == 0 : isDate(date);
+  }
+
+  private
+  boolean isDate(String s) {
+    if (sdf == null) {
+      return false;
+    }
+    ParsePosition pos = new ParsePosition(0);
+    Date date = sdf.parse(s, pos);
+    return date != null && pos.getIndex() == s.length()
+      && sdf.format(date).equals(s);
+  }
+
+  /**
+     Returns the name the current file is rolled over to. Indexes go on
+     from the last rolled file with the same date, so existing files
+     are only looked up once per date.
+   */
+  private
+  File nextTarget() {
+    String base = fileName;
+    if (sdf != null) {
+      base += sdf.format(new Date(fileStartTime));
+    }
+    if (!indexed && !base.equals(fileName)) {
+      File target = new File(base);
+      if (!exists(target)) {
+        return target;
+      }
+    }
+    int index = base.equals(lastBase) ? lastIndex : 0;
+    File target;
+    do {
+      target = new File(base + '.' + (++index));
+    } while (exists(target));
+    lastBase = base;
+    lastIndex = index;
+    return target;
+  }
+
+  private
+  boolean exists(File file) {
+    return file.exists()
+      || (codec != null
+          && new File(file.getPath() + codec.getFileExtension()).exists());
+  }
+}
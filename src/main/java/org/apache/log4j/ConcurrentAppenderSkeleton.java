@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.log4j;
+
+import org.apache.log4j.spi.LoggingEvent;
+
+/**
+ * Base class for appenders which are safe to call from several threads
+ * at once.
+ * <p/>
+ * <p>Unlike {@link AppenderSkeleton#doAppend AppenderSkeleton.doAppend},
+ * the {@link #doAppend doAppend} method of this class is not
+ * synchronized: the threshold check and the filter chain are evaluated
+ * by the calling thread without holding any lock, and {@link #append
+ * append} is then invoked concurrently. Subclasses are responsible for
+ * guarding the sections of <code>append</code> which touch shared state,
+ * typically the actual I/O, and should keep everything else (formatting,
+ * encoding) outside of that guard.
+ * <p/>
+ * <p>Since <code>close</code> may run while other threads are inside
+ * <code>append</code>, subclasses must check the {@link #closed} flag
+ * again inside their guarded section. Filters should be added before
+ * the appender is attached to a logger.
+ *
+ * @since 1.2.18
+ */
+public abstract class ConcurrentAppenderSkeleton extends AppenderSkeleton {
+
+    /**
+     * Create new instance.
+     */
+    protected ConcurrentAppenderSkeleton() {
+        super();
+    }
+
+    /**
+     * Performs the threshold check and filter evaluation, then calls
+     * {@link #append}, all without synchronization.
+     */
+    public void doAppend(LoggingEvent event) {
+        if (isAppendable(event)) {
+            append(event);
+        }
+    }
+}
@@ -24,12 +24,12 @@ import java.io.File;
 import java.io.InterruptedIOException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
-import java.util.GregorianCalendar;
-import java.util.Calendar;
 import java.util.TimeZone;
 import java.util.Locale;
 
+import org.apache.log4j.helpers.FileCompressor;
 import org.apache.log4j.helpers.LogLog;
+import org.apache.log4j.spi.CompressionCodec;
 import org.apache.log4j.spi.LoggingEvent;
 
 /**
@@ -175,6 +175,14 @@ public class DailyRollingFileAppender extends FileAppender {
      The next time we estimate a rollover should occur. */
   private long nextCheck = System.currentTimeMillis () - 1;
 
+  /**
+     The <b>Compression</b> option, <code>null</code> by default. */
+  private String compression;
+
+  /**
+     Codec compressing the rolled files, <code>null</code> for none. */
+  private CompressionCodec codec;
+
   Date now = new Date();
 
   SimpleDateFormat sdf;
@@ -214,6 +222,31 @@ public class DailyRollingFileAppender extends FileAppender {
     datePattern = pattern;
   }
 
+  /**
+     The <b>Compression</b> option selects how rolled files are
+     compressed: "none", the default, "gzip", or the name of a class
+     implementing {@link CompressionCodec}. Rolled files are compressed
+     on a low priority background thread and get the extension of the
+     codec, for example <code>.gz</code>. When too many files are
+     waiting, a rolled file is left uncompressed rather than delaying
+     logging.
+
+     @since 1.2.18
+   */
+  public void setCompression(String compression) {
+    this.compression = compression;
+    this.codec = FileCompressor.getCodec(compression);
+  }
+
+  /**
+     Returns the value of the <b>Compression</b> option.
+
+     @since 1.2.18
+   */
+  public String getCompression() {
+    return compression;
+  }
+
   /** Returns the value of the <b>DatePattern</b> option. */
   public String getDatePattern() {
     return datePattern;
@@ -277,6 +310,14 @@ public class DailyRollingFileAppender extends FileAppender {
   // GMT (the epoch).
 
   int computeCheckPeriod() {
+    return computeCheckPeriod(datePattern);
+  }
+
+  /**
+     Computes the roll over period of <code>datePattern</code>, see
+     above.
+   */
+  static int computeCheckPeriod(String datePattern) {
     RollingCalendar rollingCalendar = new RollingCalendar(gmtTimeZone, Locale.getDefault());
     // set sate to 1970-01-01 00:00:00 GMT
     Date epoch = new Date(0);
@@ -328,6 +369,10 @@ public class DailyRollingFileAppender extends FileAppender {
     boolean result = file.renameTo(target);
     if(result) {
       LogLog.debug(fileName +" -> "+ scheduledFilename);
+      if(codec != null && !FileCompressor.compressInBackground(target, codec)) {
+        LogLog.warn("Too many files waiting for compression, leaving ["
+                    +scheduledFilename+"] uncompressed.");
+      }
     } else {
       LogLog.error("Failed to rename ["+fileName+"] to ["+scheduledFilename+"].");
     }
@@ -369,86 +414,3 @@ public class DailyRollingFileAppender extends FileAppender {
     super.subAppend(event);
    }
 }
-
-/**
- *  RollingCalendar is a helper class to DailyRollingFileAppender.
- *  Given a periodicity type and the current time, it computes the
- *  start of the next interval.  
- * */
-class RollingCalendar extends GregorianCalendar {
-  private static final long serialVersionUID = -3560331770601814177L;
-
-  int type = DailyRollingFileAppender.TOP_OF_TROUBLE;
-
-  RollingCalendar() {
-    super();
-  }  
-
-  RollingCalendar(TimeZone tz, Locale locale) {
-    super(tz, locale);
-  }  
-
-  void setType(int type) {
-    this.type = type;
-  }
-
-  public long getNextCheckMillis(Date now) {
-    return getNextCheckDate(now).getTime();
-  }
-
-  public Date getNextCheckDate(Date now) {
-    this.setTime(now);
-
-    switch(type) {
-    case DailyRollingFileAppender.TOP_OF_MINUTE:
-	this.set(Calendar.SECOND, 0);
-	this.set(Calendar.MILLISECOND, 0);
-	this.add(Calendar.MINUTE, 1);
-	break;
-    case DailyRollingFileAppender.TOP_OF_HOUR:
-	this.set(Calendar.MINUTE, 0);
-	this.set(Calendar.SECOND, 0);
-	this.set(Calendar.MILLISECOND, 0);
-	this.add(Calendar.HOUR_OF_DAY, 1);
-	break;
-    case DailyRollingFileAppender.HALF_DAY:
-	this.set(Calendar.MINUTE, 0);
-	this.set(Calendar.SECOND, 0);
-	this.set(Calendar.MILLISECOND, 0);
-	int hour = get(Calendar.HOUR_OF_DAY);
-	if(hour < 12) {
-	  this.set(Calendar.HOUR_OF_DAY, 12);
-	} else {
-	  this.set(Calendar.HOUR_OF_DAY, 0);
-	  this.add(Calendar.DAY_OF_MONTH, 1);
-	}
-	break;
-    case DailyRollingFileAppender.TOP_OF_DAY:
-	this.set(Calendar.HOUR_OF_DAY, 0);
-	this.set(Calendar.MINUTE, 0);
-	this.set(Calendar.SECOND, 0);
-	this.set(Calendar.MILLISECOND, 0);
-	this.add(Calendar.DATE, 1);
-	break;
-    case DailyRollingFileAppender.TOP_OF_WEEK:
-	this.set(Calendar.DAY_OF_WEEK, getFirstDayOfWeek());
-	this.set(Calendar.HOUR_OF_DAY, 0);
-	this.set(Calendar.MINUTE, 0);
-	this.set(Calendar.SECOND, 0);
-	this.set(Calendar.MILLISECOND, 0);
-	this.add(Calendar.WEEK_OF_YEAR, 1);
-	break;
-    case DailyRollingFileAppender.TOP_OF_MONTH:
-	this.set(Calendar.DATE, 1);
-	this.set(Calendar.HOUR_OF_DAY, 0);
-	this.set(Calendar.MINUTE, 0);
-	this.set(Calendar.SECOND, 0);
-	this.set(Calendar.MILLISECOND, 0);
-	this.add(Calendar.MONTH, 1);
-	break;
-    default:
-	throw new IllegalStateException("Unknown periodicity type.");
-    }
-    return getTime();
-  }
-}
@@ -38,7 +38,7 @@ import org.apache.log4j.spi.LoggingEvent;
  *
   * <p>A flexible layout configurable with pattern string. The goal of this class
   * is to {@link #format format} a {@link LoggingEvent} and return the results
-  * in a {@link StringBuffer}. The format of the result depends on the
+  * in a {@link StringBuilder}. The format of the result depends on the
   * <em>conversion pattern</em>.
   * <p>
   *
@@ -136,6 +136,11 @@ import org.apache.log4j.spi.LoggingEvent;
          <b>%d{dd&nbsp;MMM&nbsp;yyyy&nbsp;HH:mm:ss,SSS}</b>,
          <b>%d{DATE}</b> or <b>%d{HH:mm:ss}{GMT+0}</b>. If no date format specifier is given then
          ISO8601 format is assumed.  
+
+         <p>The named formats, and patterns with fractions of a
+         millisecond such as <b>%d{HH:mm:ss.SSSSSSSSS}</b> for
+         nanoseconds, are formatted with {@link
+         java.time.format.DateTimeFormatter}.
      </td>
    </tr>
 
@@ -462,6 +467,11 @@ public class EnhancedPatternLayout extends Layout {
    */
   private boolean handlesExceptions;
 
+  /**
+   * True if a subclass overrides {@link #format(LoggingEvent)}.
+   */
+  private final boolean formatsString = overridesFormat(getClass());
+
   /**
      Constructs a EnhancedPatternLayout using the DEFAULT_LAYOUT_PATTERN.
 
@@ -539,13 +549,47 @@ public class EnhancedPatternLayout extends Layout {
    * @param event logging event to be formatted.
   */
   public String format(final LoggingEvent event) {
-      StringBuffer buf = new StringBuffer();
+      StringBuilder buf = new StringBuilder();
+      formatTo(event, buf);
+      return buf.toString();
+  }
+
+  /**
+   *  Formats a logging event to a string builder.
+   * @param event logging event to be formatted.
+   * @param output string builder receiving the formatted event.
+   * @since 1.2.18
+   */
+  public void format(final LoggingEvent event, final StringBuilder output) {
+      if (formatsString) {
+          output.append(format(event));
+      } else {
+          formatTo(event, output);
+      }
+  }
+
+  private void formatTo(final LoggingEvent event, final StringBuilder output) {
       for(PatternConverter c = head;
           c != null;
           c = c.next) {
-          c.format(buf, event);
+          c.format(output, event);
+      }
+  }
+
+  /**
+   * Determines whether a subclass decorates {@link #format(LoggingEvent)},
+   * which {@link #format(LoggingEvent, StringBuilder)} must then go through.
+   * @param layoutClass layout class.
+   * @return true if the String format method is overridden.
+   */
+  private static boolean overridesFormat(final Class layoutClass) {
+      try {
+          return layoutClass.getMethod("format",
+              new Class[] { LoggingEvent.class }).getDeclaringClass()
+              != EnhancedPatternLayout.class;
+      } catch (NoSuchMethodException e) {
+          return false;
       }
-      return buf.toString();
   }
 
   /**
@@ -21,13 +21,17 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
+import java.io.Flushable;
 import java.io.IOException;
 import java.io.InterruptedIOException;
 import java.io.Writer;
+import java.util.concurrent.Future;
 
+import org.apache.log4j.helpers.BackgroundFlusher;
 import org.apache.log4j.helpers.LogLog;
 import org.apache.log4j.helpers.QuietWriter;
 import org.apache.log4j.spi.ErrorCode;
+import org.apache.log4j.spi.LoggingEvent;
 
 // Contibutors: Jens Uwe Pipka <jens.pipka@gmx.de>
 //              Ben Sandee
@@ -41,7 +45,7 @@ import org.apache.log4j.spi.ErrorCode;
  *
  * @author Ceki G&uuml;lc&uuml; 
  * */
-public class FileAppender extends WriterAppender {
+public class FileAppender extends WriterAppender implements Flushable {
 
   /** Controls file truncatation. The default value for this variable
    * is <code>true</code>, meaning that by default a
@@ -66,6 +70,22 @@ public class FileAppender extends WriterAppender {
    */
   protected int bufferSize = 8*1024;
 
+  /**
+   * Milliseconds between background flushes, 0 to disable them.
+   */
+  protected long flushInterval = 0;
+
+  /**
+   * Flush after events of this level or higher, <code>null</code> to
+   * disable.
+   */
+  protected Level flushLevel;
+
+  /**
+   * Periodic flush task, <code>null</code> when not scheduled.
+   */
+  private Future flushTask;
+
 
   /**
      The default constructor does not do anything.
@@ -252,6 +272,89 @@ public class FileAppender extends WriterAppender {
   }
 
 
+  /**
+     The <b>FlushInterval</b> option takes a number of milliseconds. If
+     positive, a background thread flushes the file at that interval,
+     which bounds how long buffered events may stay unwritten when
+     <b>BufferedIO</b> is set. It is 0, disabled, by default.
+
+     @since 1.2.18
+  */
+  public
+  void setFlushInterval(long flushInterval) {
+    this.flushInterval = flushInterval;
+  }
+
+  /**
+     Get the value of the <b>FlushInterval</b> option.
+
+     @since 1.2.18
+  */
+  public
+  long getFlushInterval() {
+    return flushInterval;
+  }
+
+  /**
+     The <b>FlushLevel</b> option takes a level. The file is flushed
+     after each event of that level or higher, so that for example
+     errors are written out immediately even when <b>BufferedIO</b> is
+     set. It is unset by default.
+
+     @since 1.2.18
+  */
+  public
+  void setFlushLevel(Level flushLevel) {
+    this.flushLevel = flushLevel;
+  }
+
+  /**
+     Get the value of the <b>FlushLevel</b> option.
+
+     @since 1.2.18
+  */
+  public
+  Level getFlushLevel() {
+    return flushLevel;
+  }
+
+  /**
+     Flushes the buffered events to the file.
+
+     @since 1.2.18
+  */
+  public
+  synchronized
+  void flush() {
+    if(this.qw != null && !this.closed) {
+      this.qw.flush();
+    }
+  }
+
+  /**
+     Also flushes after events at or above <b>FlushLevel</b>.
+
+     @since 1.2.18
+  */
+  protected
+  boolean shouldFlush(final LoggingEvent event) {
+    return super.shouldFlush(event)
+      || (flushLevel != null && event.getLevel().isGreaterOrEqual(flushLevel));
+  }
+
+  /**
+     Stops the background flushes and closes the file.
+
+     @since 1.2.18
+  */
+  public
+  synchronized
+  void close() {
+    BackgroundFlusher.cancel(flushTask);
+    flushTask = null;
+    super.close();
+  }
+
   /**
      Set the size of the IO buffer.
   */
@@ -320,6 +423,9 @@ public class FileAppender extends WriterAppender {
     this.bufferedIO = bufferedIO;
     this.bufferSize = bufferSize;
     writeHeader();
+    if(flushTask == null && flushInterval > 0) {
+      flushTask = BackgroundFlusher.schedule(this, flushInterval);
+    }
     LogLog.debug("setFile ended");
   }
 
@@ -0,0 +1,542 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.log4j;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.Future;
+
+import org.apache.log4j.helpers.BackgroundFlusher;
+import org.apache.log4j.helpers.ByteBufferDestination;
+import org.apache.log4j.helpers.ByteBufferPool;
+import org.apache.log4j.helpers.LogLog;
+import org.apache.log4j.helpers.StringBuilderEncoder;
+import org.apache.log4j.spi.ErrorCode;
+import org.apache.log4j.spi.LoggingEvent;
+
+/**
+   FileChannelAppender appends log events to a file through a
+   <code>java.nio.channels.FileChannel</code>.
+
+   <p>Unlike {@link FileAppender}, no <code>Writer</code> is involved:
+   the layout appends the event to a reused <code>StringBuilder</code>
+   (see {@link Layout#format(LoggingEvent, StringBuilder)}), which is
+   encoded directly into a reused <code>ByteBuffer</code> that is
+   handed to {@link FileChannel#write(ByteBuffer)}. With a layout such
+   as {@link PatternLayout} no intermediate <code>String</code> or
+   byte array is created per event.
+
+   <p>The <b>File</b>, <b>Append</b>, <b>Encoding</b>,
+   <b>ImmediateFlush</b> and <b>BufferSize</b> options have the same
+   meaning as for {@link FileAppender}. Buffers are taken from a {@link
+   ByteBufferPool} shared by the appenders using the same size; set
+   <b>DirectBuffer</b> to use direct buffers.
+
+   <p>With <b>BufferCount</b> greater than one, full buffers are set
+   aside until that many are filled and are then written with one
+   gathering write.
+
+   <p>When <b>ImmediateFlush</b> is <code>false</code>, bytes are
+   written out when all buffers are full, when the appender is closed
+   and after an event for which one of these flush policies applies:
+   <ul>
+   <li><b>FlushBytes</b>: at least that many bytes are pending;
+   <li><b>FlushInterval</b>: at least that many milliseconds passed
+   since bytes were last written out. A background thread also writes
+   out pending bytes at that interval when no events arrive;
+   <li><b>FlushLevel</b>: the level of the event is that level or
+   higher, for example <code>ERROR</code>.
+   </ul>
+
+   @since 1.2.18 */
+public class FileChannelAppender extends AppenderSkeleton
+  implements Flushable {
+
+  /** Initial capacity of the text buffer. */
+  private static final int TEXT_SIZE = 256;
+
+  /** Text buffers grown beyond this capacity are discarded. */
+  private static final int MAX_TEXT_CAPACITY = 1024;
+
+  /** Controls file truncation, <code>true</code> by default. */
+  protected boolean fileAppend = true;
+
+  /** The name of the log file. */
+  protected String fileName = null;
+
+  /** Size of the byte buffer, 8K by default. */
+  protected int bufferSize = 8*1024;
+
+  /** Write out the buffer after each event, <code>true</code> by
+      default. */
+  protected boolean immediateFlush = true;
+
+  /** The encoding of the file, the platform default if
+      <code>null</code>. */
+  protected String encoding;
+
+  /** Use direct byte buffers, <code>false</code> by default. */
+  protected boolean directBuffer = false;
+
+  /** Number of buffers written out together, 1 by default. */
+  protected int bufferCount = 1;
+
+  /** Write out once this many bytes are pending, 0 to disable. */
+  protected int flushBytes = 0;
+
+  /** Write out when this many milliseconds passed since the last
+      write, 0 to disable. */
+  protected long flushInterval = 0;
+
+  /** Write out after events of this level or higher,
+      <code>null</code> to disable. */
+  protected Level flushLevel;
+
+  /** The open channel, <code>null</code> until the file is opened. */
+  protected FileChannel channel;
+
+  private FileOutputStream ostream;
+  private ByteBufferPool pool;
+  /** Full buffers waiting to be written, followed by a free slot for
+      the current buffer. */
+  private ByteBuffer[] pending;
+  private int pendingCount;
+  private long lastFlush;
+  private Future flushTask;
+  private StringBuilder text = new StringBuilder(TEXT_SIZE);
+  private StringBuilderEncoder encoder;
+  private final Destination destination = new Destination();
+
+  /**
+     The default constructor does not do anything.
+  */
+  public FileChannelAppender() {
+  }
+
+  /**
+     Instantiate a <code>FileChannelAppender</code> and open the file
+     designated by <code>filename</code>.
+  */
+  public FileChannelAppender(Layout layout, String filename, boolean append)
+    throws IOException {
+    this.layout = layout;
+    setFile(filename, append, bufferSize);
+  }
+
+  public void setFile(String file) {
+    fileName = file == null ? null : file.trim();
+  }
+
+  public String getFile() {
+    return fileName;
+  }
+
+  public void setAppend(boolean flag) {
+    fileAppend = flag;
+  }
+
+  public boolean getAppend() {
+    return fileAppend;
+  }
+
+  public void setBufferSize(int bufferSize) {
+    this.bufferSize = bufferSize;
+  }
+
+  public int getBufferSize() {
+    return bufferSize;
+  }
+
+  public void setImmediateFlush(boolean value) {
+    immediateFlush = value;
+  }
+
+  public boolean getImmediateFlush() {
+    return immediateFlush;
+  }
+
+  public void setEncoding(String value) {
+    encoding = value;
+  }
+
+  public String getEncoding() {
+    return encoding;
+  }
+
+  public void setDirectBuffer(boolean value) {
+    directBuffer = value;
+  }
+
+  public boolean getDirectBuffer() {
+    return directBuffer;
+  }
+
+  public void setBufferCount(int count) {
+    bufferCount = count;
+  }
+
+  public int getBufferCount() {
+    return bufferCount;
+  }
+
+  public void setFlushBytes(int bytes) {
+    flushBytes = bytes;
+  }
+
+  public int getFlushBytes() {
+    return flushBytes;
+  }
+
+  public void setFlushInterval(long millis) {
+    flushInterval = millis;
+  }
+
+  public long getFlushInterval() {
+    return flushInterval;
+  }
+
+  public void setFlushLevel(Level level) {
+    flushLevel = level;
+  }
+
+  public Level getFlushLevel() {
+    return flushLevel;
+  }
+
+  /**
+     Opens the file designated by the <b>File</b> option.
+  */
+  public void activateOptions() {
+    if(fileName != null) {
+      try {
+        setFile(fileName, fileAppend, bufferSize);
+      } catch(IOException e) {
+        errorHandler.error("setFile("+fileName+","+fileAppend+") call failed.",
+                           e, ErrorCode.FILE_OPEN_FAILURE);
+      }
+    } else {
+      LogLog.warn("File option not set for appender ["+name+"].");
+      LogLog.warn("Are you using FileChannelAppender instead of ConsoleAppender?");
+    }
+  }
+
+  /**
+     Closes any previously opened file and opens <code>fileName</code>.
+  */
+  public synchronized void setFile(String fileName, boolean append,
+                                   int bufferSize) throws IOException {
+    LogLog.debug("setFile called: "+fileName+", "+append);
+    reset();
+    FileOutputStream os;
+    try {
+      os = new FileOutputStream(fileName, append);
+    } catch(FileNotFoundException ex) {
+      // create the parent directory if it is missing, see bug 9150
+      String parentName = new File(fileName).getParent();
+      if (parentName != null) {
+        File parentDir = new File(parentName);
+        if(!parentDir.exists() && parentDir.mkdirs()) {
+          os = new FileOutputStream(fileName, append);
+        } else {
+          throw ex;
+        }
+      } else {
+        throw ex;
+      }
+    }
+    this.ostream = os;
+    this.channel = os.getChannel();
+    this.encoder = new StringBuilderEncoder(StringBuilderEncoder.toCharset(encoding));
+    this.pool = ByteBufferPool.getPool(Math.max(bufferSize, 64), directBuffer);
+    this.destination.buffer = pool.acquire();
+    this.pending = new ByteBuffer[Math.max(bufferCount, 1)];
+    this.pendingCount = 0;
+    this.lastFlush = System.currentTimeMillis();
+    this.fileName = fileName;
+    this.fileAppend = append;
+    this.bufferSize = bufferSize;
+    writeHeader();
+    if(flushTask == null && flushInterval > 0) {
+      flushTask = BackgroundFlusher.schedule(this, flushInterval);
+    }
+    LogLog.debug("setFile ended");
+  }
+
+  protected boolean checkEntryConditions() {
+    if(this.closed) {
+      LogLog.warn("Not allowed to write to a closed appender.");
+      return false;
+    }
+    if(this.channel == null) {
+      errorHandler.error("No output file set for the appender named ["+
+                         name+"].");
+      return false;
+    }
+    if(this.layout == null) {
+      errorHandler.error("No layout set for the appender named ["+ name+"].");
+      return false;
+    }
+    return true;
+  }
+
+  public void append(LoggingEvent event) {
+    if(!checkEntryConditions()) {
+      return;
+    }
+    StringBuilder buf = resetText();
+    layout.format(event, buf);
+    if(layout.ignoresThrowable()) {
+      String[] s = event.getThrowableStrRep();
+      if (s != null) {
+        for(int i = 0; i < s.length; i++) {
+          buf.append(s[i]).append(Layout.LINE_SEP);
+        }
+      }
+    }
+    try {
+      encoder.encode(buf, destination);
+      if(shouldFlush(event)) {
+        flushBuffer();
+      }
+    } catch(IOException e) {
+      handleIOException(e);
+    }
+  }
+
+  /**
+     Determines whether the pending bytes are written out after
+     <code>event</code> was encoded, according to the flush policies.
+  */
+  protected boolean shouldFlush(LoggingEvent event) {
+    if(immediateFlush) {
+      return true;
+    }
+    if(flushLevel != null && event.getLevel().isGreaterOrEqual(flushLevel)) {
+      return true;
+    }
+    if(flushBytes > 0 && getPendingBytes() >= flushBytes) {
+      return true;
+    }
+    return flushInterval > 0
+      && System.currentTimeMillis() - lastFlush >= flushInterval;
+  }
+
+  /**
+     Returns the number of bytes not written out yet.
+  */
+  protected int getPendingBytes() {
+    ByteBuffer buf = destination.buffer;
+    if (buf == null) {
+      return 0;
+    }
+    return pendingCount * buf.capacity() + buf.position();
+  }
+
+  /**
+     Writes the pending bytes to the file.
+  */
+  public synchronized void flush() {
+    if(channel != null && !closed) {
+      try {
+        flushBuffer();
+      } catch(IOException e) {
+        handleIOException(e);
+      }
+    }
+  }
+
+  /**
+     Writes the pending bytes to the channel.
+  */
+  protected void flushBuffer() throws IOException {
+    ByteBuffer buf = destination.buffer;
+    if (buf != null && (pendingCount > 0 || buf.position() > 0)) {
+      writePending(buf);
+    }
+  }
+
+  /**
+     Writes the buffers set aside and <code>current</code>, releases the
+     former to the pool and returns <code>current</code> cleared.
+  */
+  private ByteBuffer writePending(ByteBuffer current) throws IOException {
+    int count = pendingCount;
+    pending[count++] = current;
+    try {
+      writeBuffers(pending, count);
+    } finally {
+      for(int i = 0; i < count - 1; i++) {
+        pool.release(pending[i]);
+        pending[i] = null;
+      }
+      pending[count - 1] = null;
+      pendingCount = 0;
+      current.clear();
+      lastFlush = System.currentTimeMillis();
+    }
+    return current;
+  }
+
+  /**
+     Writes the bytes of the first <code>count</code> buffers, which are
+     in write mode, to the channel, with a gathering write if there is
+     more than one.
+  */
+  protected void writeBuffers(ByteBuffer[] bufs, int count)
+    throws IOException {
+    long remaining = 0;
+    for(int i = 0; i < count; i++) {
+      bufs[i].flip();
+      remaining += bufs[i].remaining();
+    }
+    if (count == 1) {
+      ByteBuffer buf = bufs[0];
+      while (buf.hasRemaining()) {
+        channel.write(buf);
+      }
+    } else {
+      while (remaining > 0) {
+        remaining -= channel.write(bufs, 0, count);
+      }
+    }
+  }
+
+  /**
+     Returns the cleared text buffer, replacing it if a large event
+     made it grow beyond a reasonable size.
+  */
+  private StringBuilder resetText() {
+    if (text.capacity() > MAX_TEXT_CAPACITY) {
+      text = new StringBuilder(TEXT_SIZE);
+    } else {
+      text.setLength(0);
+    }
+    return text;
+  }
+
+  private void writeText(String s) {
+    if (s != null && channel != null) {
+      StringBuilder buf = resetText();
+      buf.append(s);
+      try {
+        encoder.encode(buf, destination);
+        flushBuffer();
+      } catch(IOException e) {
+        handleIOException(e);
+      }
+    }
+  }
+
+  private void handleIOException(IOException e) {
+    if (e instanceof InterruptedIOException) {
+      Thread.currentThread().interrupt();
+    }
+    errorHandler.error("Failed to write to ["+fileName+"].", e,
+                       ErrorCode.WRITE_FAILURE);
+  }
+
+  protected void writeHeader() {
+    if(layout != null) {
+      writeText(layout.getHeader());
+    }
+  }
+
+  protected void writeFooter() {
+    if(layout != null) {
+      writeText(layout.getFooter());
+    }
+  }
+
+  /**
+     Writes the footer, flushes the buffer and closes the file.
+  */
+  public synchronized void close() {
+    if(this.closed) {
+      return;
+    }
+    this.closed = true;
+    BackgroundFlusher.cancel(flushTask);
+    flushTask = null;
+    writeFooter();
+    reset();
+  }
+
+  /**
+     Flushes and closes the channel, if any.
+  */
+  protected void reset() {
+    if(channel != null) {
+      try {
+        flushBuffer();
+      } catch(IOException e) {
+        handleIOException(e);
+      }
+      try {
+        ostream.close();
+      } catch(IOException e) {
+        if (e instanceof InterruptedIOException) {
+          Thread.currentThread().interrupt();
+        }
+        LogLog.error("Could not close " + fileName, e);
+      }
+    }
+    channel = null;
+    ostream = null;
+    if(pool != null) {
+      pool.release(destination.buffer);
+      for(int i = 0; i < pendingCount; i++) {
+        pool.release(pending[i]);
+        pending[i] = null;
+      }
+    }
+    pendingCount = 0;
+    destination.buffer = null;
+  }
+
+  public boolean requiresLayout() {
+    return true;
+  }
+
+  /**
+     Sets full buffers aside until <b>BufferCount</b> buffers are
+     filled, then writes them out.
+  */
+  private final class Destination implements ByteBufferDestination {
+    ByteBuffer buffer;
+
+    public ByteBuffer getByteBuffer() {
+      return buffer;
+    }
+
+    public ByteBuffer drain(ByteBuffer buf) throws IOException {
+      if (pendingCount < pending.length - 1) {
+        pending[pendingCount++] = buf;
+        buffer = pool.acquire();
+      } else {
+        buffer = writePending(buf);
+      }
+      return buffer;
+    }
+  }
+}
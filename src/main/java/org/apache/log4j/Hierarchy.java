@@ -28,9 +28,10 @@
 package org.apache.log4j;
 
 
-import java.util.Hashtable;
 import java.util.Enumeration;
+import java.util.Iterator;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.log4j.spi.LoggerFactory;
 import org.apache.log4j.spi.HierarchyEventListener;
@@ -47,7 +48,12 @@ public class Hierarchy implements LoggerRepository, RendererSupport, ThrowableRe
     private LoggerFactory defaultFactory;
     private Vector listeners;
 
-    Hashtable ht;
+    /**
+     * Loggers and provision nodes keyed by logger name. Lookups of
+     * existing loggers are lock-free; insertions are serialized by
+     * synchronizing on this map, see {@link #getLogger(String, LoggerFactory)}.
+     */
+    ConcurrentHashMap ht;
     Logger root;
     RendererMap rendererMap;
 
@@ -60,13 +66,11 @@ public class Hierarchy implements LoggerRepository, RendererSupport, ThrowableRe
 
     /**
      * һHierarchy󣺸ʵLoggerRepositoryӿ(log)
-     * HierarchyһHashtable洢LoggerʵCategoryKeyΪkeyLoggerΪvalue
-     * CategoryKeyǶLoggerNameַķװԣһname,һhashcode
-     * ỺNameַhash codeڲҹУ
-     * ֱӼhash codeͿֱӻöӦܣ
+     * HierarchyһConcurrentHashMap洢LoggerʵLoggerΪkeyLoggerΪvalue
+     * StringỺhash codeѴڵLoggerʱҲ贴µkey
      */
     public Hierarchy(Logger root) {
-        ht = new Hashtable();
+        ht = new ConcurrentHashMap();
         listeners = new Vector(1);
         this.root = root;
         // Enable all level levels by default.
@@ -124,7 +128,7 @@ public class Hierarchy implements LoggerRepository, RendererSupport, ThrowableRe
      * @param name The name of the logger to search for.
      */
     public Logger exists(String name) {
-        Object o = ht.get(new CategoryKey(name));
+        Object o = ht.get(name);
         if (o instanceof Logger) {
             return (Logger) o;
         } else {
@@ -156,6 +160,7 @@ public class Hierarchy implements LoggerRepository, RendererSupport, ThrowableRe
         if (l != null) {
             thresholdInt = l.level;
             threshold = l;
+            Category.levelsChanged();
         }
     }
 
@@ -209,22 +214,28 @@ public class Hierarchy implements LoggerRepository, RendererSupport, ThrowableRe
 
     //ȡ־
     public Logger getLogger(String name, LoggerFactory factory) {
-        //CategoryKey󣺸ǶLoggerNameַķװԣһname,һhashcode
-        CategoryKey key = new CategoryKey(name);
+        // Fast path: an existing logger is returned without taking any lock.
+        // Loggers are fully linked into the hierarchy before being put into
+        // ht, so a logger found here always has its parent set.
+        Object o = ht.get(name);
+        if (o instanceof Logger) {
+            return (Logger) o;
+        }
+
         Logger logger;
         synchronized (ht) {
-            // HierarchyһHashtable<CategoryKey,Logger>洢Loggerʵ,
-            // ͨCategoryKeyȡӦ־
-            Object o = ht.get(key);
+            // HierarchyһMap<String,Logger>洢Loggerʵ,
+            // ͨLoggerȡӦ־
+            o = ht.get(name);
             if (o == null) {
                 //־󣺾newһLogger󣻸öCategoryࣻ
                 logger = factory.makeNewLoggerInstance(name);
                 //ô־е ־ֿ ԣrepositoryʵCategoryԣ
                 logger.setHierarchy(this);
-                //CategoryKey  logger洢Hashtable<CategoryKey,Logger>У
-                ht.put(key, logger);
                 //Logger(Category) parentԣ
                 updateParents(logger);
+                //name  logger洢Map<String,Logger>У
+                ht.put(name, logger);
                 //logger
                 return logger;
             } else if (o instanceof Logger) {
@@ -232,9 +243,9 @@ public class Hierarchy implements LoggerRepository, RendererSupport, ThrowableRe
             } else if (o instanceof ProvisionNode) {
                 logger = factory.makeNewLoggerInstance(name);
                 logger.setHierarchy(this);
-                ht.put(key, logger);
-                updateChildren((ProvisionNode) o, logger);
                 updateParents(logger);
+                updateChildren((ProvisionNode) o, logger);
+                ht.put(name, logger);
                 return logger;
             } else {
                 return null;
@@ -255,9 +266,9 @@ public class Hierarchy implements LoggerRepository, RendererSupport, ThrowableRe
         // as well.
         Vector v = new Vector(ht.size());
 
-        Enumeration elems = ht.elements();
-        while (elems.hasMoreElements()) {
-            Object o = elems.nextElement();
+        Iterator elems = ht.values().iterator();
+        while (elems.hasNext()) {
+            Object o = elems.next();
             if (o instanceof Logger) {
                 v.addElement(o);
             }
@@ -328,8 +339,8 @@ public class Hierarchy implements LoggerRepository, RendererSupport, ThrowableRe
         root.setResourceBundle(null);
         setThreshold(Level.ALL);
 
-        // the synchronization is needed to prevent JDK 1.2.x hashtable
-        // surprises
+        // the synchronization keeps loggers from being created while
+        // the existing ones are reset
         synchronized (ht) {
             shutdown(); // nested locks are OK
 
@@ -429,16 +440,14 @@ public class Hierarchy implements LoggerRepository, RendererSupport, ThrowableRe
         for (int i = name.lastIndexOf('.', length - 1); i >= 0; i = name.lastIndexOf('.', i - 1)) {
             //λȡĿ¼com.jiaboyan.logDemo.slf4jDemocom.jiaboyan.logDemocom.jiaboyancom;
             String substr = name.substring(0, i);
-            //CategoryKey󣬸öǶLoggerNameַԼhashcodeķװ
-            CategoryKey key = new CategoryKey(substr);
-            // ͨCategoryKey hashtableлȡӦLogger:loggerʼɺhashtableûգ
-            Object o = ht.get(key);
+            // ͨĿ¼ htлȡӦLogger:loggerʼɺhtûգ
+            Object o = ht.get(substr);
             if (o == null) {
                 // ProvisionNode
                 ProvisionNode pn = new ProvisionNode(cat);
-                //hashTableУ־ÿһĿ¼δŽhashtableУ
+                //htУ־ÿһĿ¼δŽhtУ
                 //ÿһĿ¼ӦĶͬLogger
-                ht.put(key, pn);
+                ht.put(substr, pn);
             } else if (o instanceof Category) {
                 parentFound = true;
                 cat.parent = (Category) o;
@@ -453,6 +462,7 @@ public class Hierarchy implements LoggerRepository, RendererSupport, ThrowableRe
         //parentFoundɷfalseĻǾͰѸLoggerΪLoggerparent:
         if (!parentFound)
             cat.parent = root;
+        Category.levelsChanged();
     }
 
     /**
@@ -485,6 +495,7 @@ public class Hierarchy implements LoggerRepository, RendererSupport, ThrowableRe
                 l.parent = logger;
             }
         }
+        Category.levelsChanged();
     }
 
 }
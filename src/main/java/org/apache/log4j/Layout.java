@@ -42,6 +42,21 @@ public abstract class Layout implements OptionHandler {
   public
   String format(LoggingEvent event);
 
+  /**
+     Appends the formatted <code>event</code> to <code>output</code>.
+
+     <p>The base class appends the result of {@link #format}. Layouts
+     which can write their output without building an intermediate
+     <code>String</code> should override this method; appenders which
+     encode text themselves, such as {@link FileChannelAppender}, call
+     it with a reused buffer.
+
+     @since 1.2.18 */
+  public
+  void format(LoggingEvent event, StringBuilder output) {
+    output.append(format(event));
+  }
+
   /**
      Returns the content type output by this layout. The base class
      returns "text/plain". 
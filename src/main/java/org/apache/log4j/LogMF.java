@@ -51,34 +51,59 @@ public final class LogMF extends LogXF {
     }
 
     /**
-     * Number format.
+     * Number and date formats of the current thread. The formats are
+     * not thread safe, each thread has its own rather than sharing
+     * synchronized ones.
      */
-    private static NumberFormat numberFormat = null;
-    /**
-     * Locale at time of last number format request.
-     */
-    private static Locale numberLocale = null;
+    private static final ThreadLocal formats = new ThreadLocal();
+
     /**
-     * Date format.
+     * The formats of one thread for the locale they were created in.
      */
-    private static DateFormat dateFormat = null;
+    private static final class Formats {
+        /**
+         * Locale at time of creation.
+         */
+        final Locale locale;
+        /**
+         * Number format, created on first use.
+         */
+        NumberFormat numberFormat;
+        /**
+         * Date format, created on first use.
+         */
+        DateFormat dateFormat;
+
+        Formats(final Locale locale) {
+            this.locale = locale;
+        }
+    }
+
     /**
-     * Locale at time of last date format request.
+     * Returns the formats of the current thread for the default locale.
+     * @return formats.
      */
-    private static Locale dateLocale = null;
+    private static Formats getFormats() {
+        Locale currentLocale = Locale.getDefault();
+        Formats current = (Formats) formats.get();
+        if (current == null || current.locale != currentLocale) {
+            current = new Formats(currentLocale);
+            formats.set(current);
+        }
+        return current;
+    }
 
     /**
      * Format number.
      * @param n number to format, may not be null.
      * @return formatted value.
      */
-    private static synchronized String formatNumber(final Object n) {
-        Locale currentLocale = Locale.getDefault();
-        if (currentLocale != numberLocale || numberFormat == null) {
-            numberLocale = currentLocale;
-            numberFormat = NumberFormat.getInstance(currentLocale);
+    private static String formatNumber(final Object n) {
+        Formats current = getFormats();
+        if (current.numberFormat == null) {
+            current.numberFormat = NumberFormat.getInstance(current.locale);
         }
-        return numberFormat.format(n);
+        return current.numberFormat.format(n);
     }
 
 
@@ -87,16 +112,15 @@ public final class LogMF extends LogXF {
      * @param d date, may not be null.
      * @return formatted value.
      */
-    private static synchronized String formatDate(final Object d) {
-        Locale currentLocale = Locale.getDefault();
-        if (currentLocale != dateLocale || dateFormat == null) {
-            dateLocale = currentLocale;
-            dateFormat = DateFormat.getDateTimeInstance(
+    private static String formatDate(final Object d) {
+        Formats current = getFormats();
+        if (current.dateFormat == null) {
+            current.dateFormat = DateFormat.getDateTimeInstance(
                                 DateFormat.SHORT,
                                 DateFormat.SHORT,
-                                currentLocale);
+                                current.locale);
         }
-        return dateFormat.format(d);
+        return current.dateFormat.format(d);
     }
 
     /**
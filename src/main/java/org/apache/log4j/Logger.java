@@ -18,12 +18,17 @@
 package org.apache.log4j;
 
 import org.apache.log4j.spi.LoggerFactory;
+import org.apache.log4j.spi.ParameterizedMessage;
 
 
 /**
   This is the central class in the log4j package. Most logging
   operations, except configuration, are done through this class.
 
+  <p>Besides the methods inherited from {@link Category}, a logger
+  offers parameterized methods such as {@link #debug(String, Object)},
+  which only format their message once it is known to be logged.
+
   @since log4j 1.2
 
   @author Ceki G&uuml;lc&uuml; */
@@ -163,11 +168,7 @@ public class Logger extends Category {
      * @since 1.2.12
      */
     public void trace(Object message) {
-      if (repository.isDisabled(Level.TRACE_INT)) {
-        return;
-      }
-
-      if (Level.TRACE.isGreaterOrEqual(this.getEffectiveLevel())) {
+      if (isEnabled(Level.TRACE_INT)) {
         forcedLog(FQCN, Level.TRACE, message, null);
       }
     }
@@ -185,11 +186,7 @@ public class Logger extends Category {
      * @since 1.2.12
      */
     public void trace(Object message, Throwable t) {
-      if (repository.isDisabled(Level.TRACE_INT)) {
-        return;
-      }
-
-      if (Level.TRACE.isGreaterOrEqual(this.getEffectiveLevel())) {
+      if (isEnabled(Level.TRACE_INT)) {
         forcedLog(FQCN, Level.TRACE, message, t);
       }
     }
@@ -202,11 +199,253 @@ public class Logger extends Category {
      *         TRACE, <code>false</code> otherwise.
      */
     public boolean isTraceEnabled() {
-        if (repository.isDisabled(Level.TRACE_INT)) {
-            return false;
-          }
+        return isEnabled(Level.TRACE_INT);
+    }
+
+    /**
+     * Log a parameterized message with the <code>TRACE</code> level.
+     * See {@link #debug(String, Object)}.
+     *
+     * @since 1.2.18
+     */
+    public void trace(String pattern, Object arg) {
+        if (isEnabled(Level.TRACE_INT)) {
+            forcedLog(Level.TRACE, new ParameterizedMessage(pattern, arg));
+        }
+    }
+
+    /**
+     * Log a parameterized message with the <code>TRACE</code> level.
+     * See {@link #debug(String, Object)}.
+     *
+     * @since 1.2.18
+     */
+    public void trace(String pattern, Object arg0, Object arg1) {
+        if (isEnabled(Level.TRACE_INT)) {
+            forcedLog(Level.TRACE, new ParameterizedMessage(pattern, arg0, arg1));
+        }
+    }
+
+    /**
+     * Log a message with the <code>TRACE</code> level including the
+     * stack trace of <code>t</code>. See {@link #debug(String,
+     * Throwable)}.
+     *
+     * @since 1.2.18
+     */
+    public void trace(String message, Throwable t) {
+        if (isEnabled(Level.TRACE_INT)) {
+            forcedLog(FQCN, Level.TRACE, message, t);
+        }
+    }
+
+    /**
+     * Log a message with the <code>DEBUG</code> level, made of
+     * <code>pattern</code> with its <code>{}</code> placeholder
+     * replaced by <code>arg</code>.
+     *
+     * <p>Nothing is done unless this logger is <code>DEBUG</code>
+     * enabled, and even then the message is only formatted when an
+     * appender renders it, see {@link ParameterizedMessage}. A
+     * {@link Throwable} passed as the argument without placeholder
+     * for it is logged with its stack trace.
+     *
+     * @param pattern the message pattern.
+     * @param arg     the argument.
+     * @since 1.2.18
+     */
+    public void debug(String pattern, Object arg) {
+        if (isEnabled(Level.DEBUG_INT)) {
+            forcedLog(Level.DEBUG, new ParameterizedMessage(pattern, arg));
+        }
+    }
+
+    /**
+     * Log a message with the <code>DEBUG</code> level, made of
+     * <code>pattern</code> with its two <code>{}</code> placeholders
+     * replaced by <code>arg0</code> and <code>arg1</code>. See {@link
+     * #debug(String, Object)}.
+     *
+     * <p>There is no form taking more arguments, which would make
+     * calls such as <code>debug("text", null)</code> ambiguous; use
+     * {@link LogSF} instead.
+     *
+     * @since 1.2.18
+     */
+    public void debug(String pattern, Object arg0, Object arg1) {
+        if (isEnabled(Level.DEBUG_INT)) {
+            forcedLog(Level.DEBUG, new ParameterizedMessage(pattern, arg0, arg1));
+        }
+    }
+
+    /**
+     * Log a message with the <code>DEBUG</code> level including the
+     * stack trace of <code>t</code>, as {@link #debug(Object,
+     * Throwable)} does. This form keeps <code>debug("text", t)</code>
+     * and <code>debug("text", null)</code> from being ambiguous with
+     * {@link #debug(String, Object)}.
+     *
+     * @since 1.2.18
+     */
+    public void debug(String message, Throwable t) {
+        if (isEnabled(Level.DEBUG_INT)) {
+            forcedLog(FQCN, Level.DEBUG, message, t);
+        }
+    }
+
+    /**
+     * Log a parameterized message with the <code>INFO</code> level.
+     * See {@link #debug(String, Object)}.
+     *
+     * @since 1.2.18
+     */
+    public void info(String pattern, Object arg) {
+        if (isEnabled(Level.INFO_INT)) {
+            forcedLog(Level.INFO, new ParameterizedMessage(pattern, arg));
+        }
+    }
+
+    /**
+     * Log a parameterized message with the <code>INFO</code> level.
+     * See {@link #debug(String, Object)}.
+     *
+     * @since 1.2.18
+     */
+    public void info(String pattern, Object arg0, Object arg1) {
+        if (isEnabled(Level.INFO_INT)) {
+            forcedLog(Level.INFO, new ParameterizedMessage(pattern, arg0, arg1));
+        }
+    }
+
+    /**
+     * Log a message with the <code>INFO</code> level including the
+     * stack trace of <code>t</code>. See {@link #debug(String,
+     * Throwable)}.
+     *
+     * @since 1.2.18
+     */
+    public void info(String message, Throwable t) {
+        if (isEnabled(Level.INFO_INT)) {
+            forcedLog(FQCN, Level.INFO, message, t);
+        }
+    }
+
+    /**
+     * Log a parameterized message with the <code>WARN</code> level.
+     * See {@link #debug(String, Object)}.
+     *
+     * @since 1.2.18
+     */
+    public void warn(String pattern, Object arg) {
+        if (isEnabled(Level.WARN_INT)) {
+            forcedLog(Level.WARN, new ParameterizedMessage(pattern, arg));
+        }
+    }
+
+    /**
+     * Log a parameterized message with the <code>WARN</code> level.
+     * See {@link #debug(String, Object)}.
+     *
+     * @since 1.2.18
+     */
+    public void warn(String pattern, Object arg0, Object arg1) {
+        if (isEnabled(Level.WARN_INT)) {
+            forcedLog(Level.WARN, new ParameterizedMessage(pattern, arg0, arg1));
+        }
+    }
+
+    /**
+     * Log a message with the <code>WARN</code> level including the
+     * stack trace of <code>t</code>. See {@link #debug(String,
+     * Throwable)}.
+     *
+     * @since 1.2.18
+     */
+    public void warn(String message, Throwable t) {
+        if (isEnabled(Level.WARN_INT)) {
+            forcedLog(FQCN, Level.WARN, message, t);
+        }
+    }
+
+    /**
+     * Log a parameterized message with the <code>ERROR</code> level.
+     * See {@link #debug(String, Object)}.
+     *
+     * @since 1.2.18
+     */
+    public void error(String pattern, Object arg) {
+        if (isEnabled(Level.ERROR_INT)) {
+            forcedLog(Level.ERROR, new ParameterizedMessage(pattern, arg));
+        }
+    }
+
+    /**
+     * Log a parameterized message with the <code>ERROR</code> level.
+     * See {@link #debug(String, Object)}.
+     *
+     * @since 1.2.18
+     */
+    public void error(String pattern, Object arg0, Object arg1) {
+        if (isEnabled(Level.ERROR_INT)) {
+            forcedLog(Level.ERROR, new ParameterizedMessage(pattern, arg0, arg1));
+        }
+    }
+
+    /**
+     * Log a message with the <code>ERROR</code> level including the
+     * stack trace of <code>t</code>. See {@link #debug(String,
+     * Throwable)}.
+     *
+     * @since 1.2.18
+     */
+    public void error(String message, Throwable t) {
+        if (isEnabled(Level.ERROR_INT)) {
+            forcedLog(FQCN, Level.ERROR, message, t);
+        }
+    }
+
+    /**
+     * Log a parameterized message with the <code>FATAL</code> level.
+     * See {@link #debug(String, Object)}.
+     *
+     * @since 1.2.18
+     */
+    public void fatal(String pattern, Object arg) {
+        if (isEnabled(Level.FATAL_INT)) {
+            forcedLog(Level.FATAL, new ParameterizedMessage(pattern, arg));
+        }
+    }
 
-          return Level.TRACE.isGreaterOrEqual(this.getEffectiveLevel());
+    /**
+     * Log a parameterized message with the <code>FATAL</code> level.
+     * See {@link #debug(String, Object)}.
+     *
+     * @since 1.2.18
+     */
+    public void fatal(String pattern, Object arg0, Object arg1) {
+        if (isEnabled(Level.FATAL_INT)) {
+            forcedLog(Level.FATAL, new ParameterizedMessage(pattern, arg0, arg1));
+        }
+    }
+
+    /**
+     * Log a message with the <code>FATAL</code> level including the
+     * stack trace of <code>t</code>. See {@link #debug(String,
+     * Throwable)}.
+     *
+     * @since 1.2.18
+     */
+    public void fatal(String message, Throwable t) {
+        if (isEnabled(Level.FATAL_INT)) {
+            forcedLog(FQCN, Level.FATAL, message, t);
+        }
+    }
+
+    /**
+     * Logs a parameterized message, with the throwable it carries.
+     */
+    private void forcedLog(Level level, ParameterizedMessage message) {
+        forcedLog(FQCN, level, message, message.getThrowable());
     }
 
 }
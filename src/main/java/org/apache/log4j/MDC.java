@@ -19,7 +19,10 @@ package org.apache.log4j;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Hashtable;
+import java.util.Map;
 import org.apache.log4j.helpers.Loader;
 import org.apache.log4j.helpers.ThreadLocalMap;
 
@@ -34,6 +37,11 @@ import org.apache.log4j.helpers.ThreadLocalMap;
    <p><b><em>The MDC is managed on a per thread basis</em></b>. A
    child thread automatically inherits a <em>copy</em> of the mapped
    diagnostic context of its parent.
+
+   <p>Each thread holds its context as an unmodifiable map which
+   {@link #put} and {@link #remove} replace with a modified copy. The
+   context of an event, or of a child thread, is thus taken by copying
+   a reference.
   
    <p>The MDC class requires JDK 1.2 or above. Under JDK 1.1 the MDC
    will always return empty values but otherwise will not affect or
@@ -117,10 +125,28 @@ public class MDC {
   /**
    * Get the current thread's MDC as a hashtable. This method is
    * intended to be used internally.  
+   *
+   * <p>The hashtable is a copy, changing it does not change the MDC.
    * */
   public static Hashtable getContext() {
     if (mdc != null) {
-        return mdc.getContext0();
+        Map map = mdc.getContextMap0();
+        return map == null ? null : new Hashtable(map);
+    } else {
+        return null;
+    }
+  }
+
+  /**
+   * Get the current thread's MDC as an unmodifiable map, which later
+   * changes to the MDC do not affect. No copy is made.
+   *
+   * @return the context, or <code>null</code> if it is empty.
+   * @since 1.2.18
+   * */
+  public static Map getContextMap() {
+    if (mdc != null) {
+        return mdc.getContextMap0();
     } else {
         return null;
     }
@@ -142,12 +168,14 @@ public class MDC {
     if(java1 || tlm == null) {
       return;
     } else {
-      Hashtable ht = (Hashtable) ((ThreadLocalMap)tlm).get();
-      if(ht == null) {
-        ht = new Hashtable(HT_SIZE);
-        ((ThreadLocalMap)tlm).set(ht);
-      }    
-      ht.put(key, o);
+      if(key == null || o == null) {
+        // as the Hashtable used before
+        throw new NullPointerException();
+      }
+      Map map = (Map) ((ThreadLocalMap)tlm).get();
+      HashMap copy = (map == null) ? new HashMap(HT_SIZE) : new HashMap(map);
+      copy.put(key, o);
+      ((ThreadLocalMap)tlm).set(Collections.unmodifiableMap(copy));
     }
   }
   
@@ -156,9 +184,9 @@ public class MDC {
     if(java1 || tlm == null) {
       return null;
     } else {       
-      Hashtable ht = (Hashtable) ((ThreadLocalMap)tlm).get();
-      if(ht != null && key != null) {
-        return ht.get(key);
+      Map map = (Map) ((ThreadLocalMap)tlm).get();
+      if(map != null && key != null) {
+        return map.get(key);
       } else {
         return null;
       }
@@ -168,12 +196,15 @@ public class MDC {
   private
   void remove0(String key) {
     if(!java1 && tlm != null) {
-      Hashtable ht = (Hashtable) ((ThreadLocalMap)tlm).get();
-      if(ht != null) {
-        ht.remove(key);
+      Map map = (Map) ((ThreadLocalMap)tlm).get();
+      if(map != null && map.containsKey(key)) {
         // clean up if this was the last key
-        if (ht.isEmpty()) {
+        if (map.size() == 1) {
           clear0();
+        } else {
+          HashMap copy = new HashMap(map);
+          copy.remove(key);
+          ((ThreadLocalMap)tlm).set(Collections.unmodifiableMap(copy));
         }
       } 
     }
@@ -181,21 +212,20 @@ public class MDC {
 
 
   private
-  Hashtable getContext0() {
+  Map getContextMap0() {
      if(java1 || tlm == null) {
       return null;
     } else {       
-      return (Hashtable) ((ThreadLocalMap)tlm).get();
+      return (Map) ((ThreadLocalMap)tlm).get();
     }
   }
 
   private
   void clear0() {
     if(!java1 && tlm != null) {
-      Hashtable ht = (Hashtable) ((ThreadLocalMap)tlm).get();
-      if(ht != null) {
-        ht.clear();
-      }
+      // the map may be shared with events and child threads,
+      //   so it is dropped rather than cleared
+      ((ThreadLocalMap)tlm).set(null);
       if(removeMethod != null) {
           // java 1.3/1.4 does not have remove - will suffer from a memory leak
           try {
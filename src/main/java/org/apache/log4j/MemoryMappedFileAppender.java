@@ -0,0 +1,403 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.log4j;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.apache.log4j.helpers.ByteBufferDestination;
+import org.apache.log4j.helpers.LogLog;
+import org.apache.log4j.helpers.StringBuilderEncoder;
+import org.apache.log4j.spi.ErrorCode;
+import org.apache.log4j.spi.LoggingEvent;
+
+/**
+   MemoryMappedFileAppender appends log events to a memory-mapped
+   region of a file.
+
+   <p>Events are encoded straight into a <code>MappedByteBuffer</code>
+   covering the end of the file, so appending an event does not
+   involve any system call. When the region is full the next one is
+   mapped. The file grows by whole regions while it is open and is
+   truncated to the length actually written when the appender is
+   closed.
+
+   <p>The written bytes reach the operating system immediately, so they
+   survive a crash of the application, but not a crash of the
+   operating system unless <b>ImmediateFlush</b> is set, which forces
+   the region to the storage device after each event and is slow.
+
+   <p>The <b>File</b>, <b>Append</b> and <b>Encoding</b> options have
+   the same meaning as for {@link FileAppender}. <b>RegionLength</b>
+   sets the size of the mapped regions, 32 MB by default.
+
+   @since 1.2.18 */
+public class MemoryMappedFileAppender extends AppenderSkeleton {
+
+  /** Default length of the mapped regions, 32 MB. */
+  public static final int DEFAULT_REGION_LENGTH = 32*1024*1024;
+
+  /** Initial capacity of the text buffer. */
+  private static final int TEXT_SIZE = 256;
+
+  /** Text buffers grown beyond this capacity are discarded. */
+  private static final int MAX_TEXT_CAPACITY = 1024;
+
+  /** Controls file truncation, <code>true</code> by default. */
+  protected boolean fileAppend = true;
+
+  /** The name of the log file. */
+  protected String fileName = null;
+
+  /** Length of the mapped regions. */
+  protected int regionLength = DEFAULT_REGION_LENGTH;
+
+  /** Force the region to the device after each event,
+      <code>false</code> by default. */
+  protected boolean immediateFlush = false;
+
+  /** The encoding of the file, the platform default if
+      <code>null</code>. */
+  protected String encoding;
+
+  private RandomAccessFile file;
+  private FileChannel channel;
+  /** Offset in the file of the current region. */
+  private long regionOffset;
+  private MappedByteBuffer region;
+  private StringBuilder text = new StringBuilder(TEXT_SIZE);
+  private StringBuilderEncoder encoder;
+  private final Destination destination = new Destination();
+
+  /**
+     The default constructor does not do anything.
+  */
+  public MemoryMappedFileAppender() {
+  }
+
+  /**
+     Instantiate a <code>MemoryMappedFileAppender</code> and open the
+     file designated by <code>filename</code>.
+  */
+  public MemoryMappedFileAppender(Layout layout, String filename,
+                                  boolean append) throws IOException {
+    this.layout = layout;
+    setFile(filename, append, regionLength);
+  }
+
+  public void setFile(String file) {
+    fileName = file == null ? null : file.trim();
+  }
+
+  public String getFile() {
+    return fileName;
+  }
+
+  public void setAppend(boolean flag) {
+    fileAppend = flag;
+  }
+
+  public boolean getAppend() {
+    return fileAppend;
+  }
+
+  public void setRegionLength(int regionLength) {
+    this.regionLength = regionLength;
+  }
+
+  public int getRegionLength() {
+    return regionLength;
+  }
+
+  public void setImmediateFlush(boolean value) {
+    immediateFlush = value;
+  }
+
+  public boolean getImmediateFlush() {
+    return immediateFlush;
+  }
+
+  public void setEncoding(String value) {
+    encoding = value;
+  }
+
+  public String getEncoding() {
+    return encoding;
+  }
+
+  /**
+     Opens the file designated by the <b>File</b> option.
+  */
+  public void activateOptions() {
+    if(fileName != null) {
+      try {
+        setFile(fileName, fileAppend, regionLength);
+      } catch(IOException e) {
+        errorHandler.error("setFile("+fileName+","+fileAppend+") call failed.",
+                           e, ErrorCode.FILE_OPEN_FAILURE);
+      }
+    } else {
+      LogLog.warn("File option not set for appender ["+name+"].");
+    }
+  }
+
+  /**
+     Closes any previously opened file, opens <code>fileName</code> and
+     maps its end.
+  */
+  public synchronized void setFile(String fileName, boolean append,
+                                   int regionLength) throws IOException {
+    LogLog.debug("setFile called: "+fileName+", "+append);
+    if(regionLength <= 0) {
+      throw new IllegalArgumentException("Region length must be positive: "
+                                         + regionLength);
+    }
+    reset();
+    RandomAccessFile raf;
+    try {
+      raf = new RandomAccessFile(fileName, "rw");
+    } catch(FileNotFoundException ex) {
+      // create the parent directory if it is missing, see bug 9150
+      String parentName = new File(fileName).getParent();
+      if (parentName != null) {
+        File parentDir = new File(parentName);
+        if(!parentDir.exists() && parentDir.mkdirs()) {
+          raf = new RandomAccessFile(fileName, "rw");
+        } else {
+          throw ex;
+        }
+      } else {
+        throw ex;
+      }
+    }
+    try {
+      if(!append) {
+        raf.setLength(0);
+      }
+      this.file = raf;
+      this.channel = raf.getChannel();
+      this.regionLength = regionLength;
+      this.regionOffset = raf.length();
+      this.region = channel.map(FileChannel.MapMode.READ_WRITE,
+                                regionOffset, regionLength);
+    } catch(IOException e) {
+      this.region = null;
+      this.channel = null;
+      this.file = null;
+      raf.close();
+      throw e;
+    }
+    this.encoder = new StringBuilderEncoder(StringBuilderEncoder.toCharset(encoding));
+    this.fileName = fileName;
+    this.fileAppend = append;
+    writeHeader();
+    LogLog.debug("setFile ended");
+  }
+
+  protected boolean checkEntryConditions() {
+    if(this.closed) {
+      LogLog.warn("Not allowed to write to a closed appender.");
+      return false;
+    }
+    if(this.region == null) {
+      errorHandler.error("No output file set for the appender named ["+
+                         name+"].");
+      return false;
+    }
+    if(this.layout == null) {
+      errorHandler.error("No layout set for the appender named ["+ name+"].");
+      return false;
+    }
+    return true;
+  }
+
+  public void append(LoggingEvent event) {
+    if(!checkEntryConditions()) {
+      return;
+    }
+    StringBuilder buf = resetText();
+    layout.format(event, buf);
+    if(layout.ignoresThrowable()) {
+      String[] s = event.getThrowableStrRep();
+      if (s != null) {
+        for(int i = 0; i < s.length; i++) {
+          buf.append(s[i]).append(Layout.LINE_SEP);
+        }
+      }
+    }
+    try {
+      encoder.encode(buf, destination);
+      if(immediateFlush) {
+        region.force();
+      }
+    } catch(IOException e) {
+      handleIOException(e);
+    }
+  }
+
+  /**
+     Maps the region following the current one, which is full.
+  */
+  private MappedByteBuffer remap() throws IOException {
+    long offset = regionOffset + region.position();
+    MappedByteBuffer next = channel.map(FileChannel.MapMode.READ_WRITE,
+                                        offset, regionLength);
+    unmap(region);
+    region = next;
+    regionOffset = offset;
+    return next;
+  }
+
+  private StringBuilder resetText() {
+    if (text.capacity() > MAX_TEXT_CAPACITY) {
+      text = new StringBuilder(TEXT_SIZE);
+    } else {
+      text.setLength(0);
+    }
+    return text;
+  }
+
+  private void writeText(String s) {
+    if (s != null && region != null) {
+      StringBuilder buf = resetText();
+      buf.append(s);
+      try {
+        encoder.encode(buf, destination);
+      } catch(IOException e) {
+        handleIOException(e);
+      }
+    }
+  }
+
+  private void handleIOException(IOException e) {
+    if (e instanceof InterruptedIOException) {
+      Thread.currentThread().interrupt();
+    }
+    errorHandler.error("Failed to write to ["+fileName+"].", e,
+                       ErrorCode.WRITE_FAILURE);
+  }
+
+  protected void writeHeader() {
+    if(layout != null) {
+      writeText(layout.getHeader());
+    }
+  }
+
+  protected void writeFooter() {
+    if(layout != null) {
+      writeText(layout.getFooter());
+    }
+  }
+
+  /**
+     Writes the footer, unmaps the region and truncates the file to the
+     length written.
+  */
+  public synchronized void close() {
+    if(this.closed) {
+      return;
+    }
+    this.closed = true;
+    writeFooter();
+    reset();
+  }
+
+  /**
+     Unmaps the region and closes the file, if any.
+  */
+  protected void reset() {
+    if(file != null) {
+      long length = regionOffset + region.position();
+      region.force();
+      unmap(region);
+      region = null;
+      try {
+        file.setLength(length);
+      } catch(IOException e) {
+        LogLog.error("Could not truncate " + fileName, e);
+      }
+      try {
+        file.close();
+      } catch(IOException e) {
+        if (e instanceof InterruptedIOException) {
+          Thread.currentThread().interrupt();
+        }
+        LogLog.error("Could not close " + fileName, e);
+      }
+    }
+    file = null;
+    channel = null;
+    region = null;
+  }
+
+  public boolean requiresLayout() {
+    return true;
+  }
+
+  /**
+     Releases the mapping of <code>buffer</code> now rather than when
+     it is garbage collected, which lets the file be truncated on every
+     platform. This relies on JDK internals and does nothing when they
+     are not accessible.
+  */
+  private static void unmap(MappedByteBuffer buffer) {
+    try {
+      Class unsafeClass = Class.forName("sun.misc.Unsafe");
+      Method invokeCleaner;
+      try {
+        invokeCleaner = unsafeClass.getMethod("invokeCleaner",
+                                              new Class[] { ByteBuffer.class });
+      } catch(NoSuchMethodException e) {
+        // before Java 9: ((DirectBuffer) buffer).cleaner().clean()
+        Method cleaner = buffer.getClass().getMethod("cleaner", new Class[0]);
+        cleaner.setAccessible(true);
+        Object c = cleaner.invoke(buffer, new Object[0]);
+        if (c != null) {
+          c.getClass().getMethod("clean", new Class[0]).invoke(c, new Object[0]);
+        }
+        return;
+      }
+      Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+      theUnsafe.setAccessible(true);
+      invokeCleaner.invoke(theUnsafe.get(null), new Object[] { buffer });
+    } catch(Exception e) {
+      LogLog.debug("Could not unmap buffer, leaving it to the garbage collector.", e);
+    }
+  }
+
+  /**
+     Maps the next region when the current one is full.
+  */
+  private final class Destination implements ByteBufferDestination {
+    public ByteBuffer getByteBuffer() {
+      return region;
+    }
+
+    public ByteBuffer drain(ByteBuffer buf) throws IOException {
+      return remap();
+    }
+  }
+}
@@ -20,12 +20,7 @@
 
 package org.apache.log4j;
 
-import java.util.Hashtable;
 import java.util.Stack;
-import java.util.Enumeration;
-import java.util.Vector;
-
-import org.apache.log4j.helpers.LogLog;
 
 /**
    The NDC class implements <i>nested diagnostic contexts</i> as
@@ -80,13 +75,12 @@ import org.apache.log4j.helpers.LogLog;
    the same category) can still be distinguished because each client
    request will have a different NDC tag.
 
-   <p>Heavy duty systems should call the {@link #remove} method when
-   leaving the run method of a thread. This ensures that the memory
-   used by the thread can be freed by the Java garbage
-   collector. There is a mechanism to lazily remove references to dead
-   threads. In practice, this means that you can be a little sloppy
-   and sometimes forget to call {@link #remove} before exiting a
-   thread.
+   <p>Each thread keeps its NDC in a {@link ThreadLocal}, as an array
+   of the pushed messages. The full context string returned by {@link
+   #get} is built when first asked for and kept until the stack
+   changes. Threads that are reused, as in thread pools, should call
+   the {@link #remove} method when they are done with a task. The NDC
+   of a thread that exits is freed along with the thread.
    
    <p>A thread may inherit the nested diagnostic context of another
    (possibly parent) thread using the {@link #inherit inherit}
@@ -101,40 +95,20 @@ import org.apache.log4j.helpers.LogLog;
  
 public class NDC {
 
-  // The synchronized keyword is not used in this class. This may seem
-  // dangerous, especially since the class will be used by
-  // multiple-threads. In particular, all threads share the same
-  // hashtable (the "ht" variable). This is OK since java hashtables
-  // are thread safe. Same goes for Stacks.
+  // The synchronized keyword is not used in this class. Each thread
+  // only ever sees its own stack, held in a ThreadLocal.
 
   // More importantly, when inheriting diagnostic contexts the child
-  // thread is handed a clone of the parent's NDC.  It follows that
+  // thread is handed a copy of the parent's NDC.  It follows that
   // each thread has its own NDC (i.e. stack).
 
-  static Hashtable ht = new Hashtable();
-
-  static int pushCounter = 0; // the number of times push has been called
-                              // after the latest call to lazyRemove
+  private static final ThreadLocal stacks = new ThreadLocal();
 
-  // The number of times we allow push to be called before we call lazyRemove
-  // 5 is a relatively small number. As such, lazyRemove is not called too
-  // frequently. We thus avoid the cost of creating an Enumeration too often.
-  // The higher this number, the longer is the avarage period for which all
-  // logging calls in all threads are blocked.
-  static final int REAP_THRESHOLD = 5;
-  
   // No instances allowed.
   private NDC() {}
   
-  /**
-   *   Get NDC stack for current thread.
-   *   @return NDC stack for current thread.
-   */
-  private static Stack getCurrentStack() {
-      if (ht != null) {
-          return (Stack) ht.get(Thread.currentThread());
-      }
-      return null;
+  private static ContextStack getCurrentStack() {
+      return (ContextStack) stacks.get();
   }
 
 
@@ -150,7 +124,7 @@ public class NDC {
   public
   static
   void clear() {
-    Stack stack = getCurrentStack();    
+    ContextStack stack = getCurrentStack();    
     if(stack != null) 
       stack.setSize(0);    
   }
@@ -173,11 +147,11 @@ public class NDC {
   public
   static
   Stack cloneStack() {
-    Stack stack = getCurrentStack();
+    ContextStack stack = getCurrentStack();
     if(stack == null)
       return null;
     else {
-      return (Stack) stack.clone();
+      return stack.toStack();
     }
   }
 
@@ -206,7 +180,7 @@ public class NDC {
   static
   void inherit(Stack stack) {
     if(stack != null)
-      ht.put(Thread.currentThread(), stack);
+      stacks.set(new ContextStack(stack));
   }
 
 
@@ -217,9 +191,9 @@ public class NDC {
   static
   public
   String get() {
-    Stack s = getCurrentStack();
-    if(s != null && !s.isEmpty()) 
-      return ((DiagnosticContext) s.peek()).fullMessage;
+    ContextStack s = getCurrentStack();
+    if(s != null && s.size > 0) 
+      return s.getFullMessage();
     else
       return null;
   }
@@ -233,56 +207,11 @@ public class NDC {
   public
   static
   int getDepth() {
-    Stack stack = getCurrentStack();          
+    ContextStack stack = getCurrentStack();          
     if(stack == null)
       return 0;
     else
-      return stack.size();      
-  }
-
-  private
-  static
-  void lazyRemove() {
-    if (ht == null) return;
-     
-    // The synchronization on ht is necessary to prevent JDK 1.2.x from
-    // throwing ConcurrentModificationExceptions at us. This sucks BIG-TIME.
-    // One solution is to write our own hashtable implementation.
-    Vector v;
-    
-    synchronized(ht) {
-      // Avoid calling clean-up too often.
-      if(++pushCounter <= REAP_THRESHOLD) {
-	return; // We release the lock ASAP.
-      } else {
-	pushCounter = 0; // OK let's do some work.
-      }
-
-      int misses = 0;
-      v = new Vector(); 
-      Enumeration enumeration = ht.keys();
-      // We give up after 4 straigt missses. That is 4 consecutive
-      // inspected threads in 'ht' that turn out to be alive.
-      // The higher the proportion on dead threads in ht, the higher the
-      // chances of removal.
-      while(enumeration.hasMoreElements() && (misses <= 4)) {
-	Thread t = (Thread) enumeration.nextElement();
-	if(t.isAlive()) {
-	  misses++;
-	} else {
-	  misses = 0;
-	  v.addElement(t);
-	}
-      }
-    } // synchronized
-
-    int size = v.size();
-    for(int i = 0; i < size; i++) {
-      Thread t = (Thread) v.elementAt(i);
-      LogLog.debug("Lazy NDC removal for thread [" + t.getName() + "] ("+ 
-		   ht.size() + ").");
-      ht.remove(t);
-    }
+      return stack.size;      
   }
 
   /**
@@ -298,9 +227,9 @@ public class NDC {
   public
   static
   String pop() {
-    Stack stack = getCurrentStack();
-    if(stack != null && !stack.isEmpty()) 
-      return ((DiagnosticContext) stack.pop()).message;
+    ContextStack stack = getCurrentStack();
+    if(stack != null && stack.size > 0) 
+      return stack.pop();
     else
       return "";
   }
@@ -318,9 +247,9 @@ public class NDC {
   public
   static
   String peek() {
-    Stack stack = getCurrentStack();
-    if(stack != null && !stack.isEmpty())
-      return ((DiagnosticContext) stack.peek()).message;
+    ContextStack stack = getCurrentStack();
+    if(stack != null && stack.size > 0)
+      return stack.messages[stack.size - 1];
     else
       return "";
   }
@@ -335,51 +264,26 @@ public class NDC {
   public
   static
   void push(String message) {
-    Stack stack = getCurrentStack();
+    ContextStack stack = getCurrentStack();
       
     if(stack == null) {
-      DiagnosticContext dc = new DiagnosticContext(message, null);      
-      stack = new Stack();
-      Thread key = Thread.currentThread();
-      ht.put(key, stack);
-      stack.push(dc);
-    } else if (stack.isEmpty()) {
-      DiagnosticContext dc = new DiagnosticContext(message, null);            
-      stack.push(dc);
-    } else {
-      DiagnosticContext parent = (DiagnosticContext) stack.peek();
-      stack.push(new DiagnosticContext(message, parent));
-    }    
+      stack = new ContextStack();
+      stacks.set(stack);
+    }
+    stack.push(message);
   }
 
   /**
      Remove the diagnostic context for this thread.
 
-     <p>Each thread that created a diagnostic context by calling
-     {@link #push} should call this method before exiting. Otherwise,
-     the memory used by the <b>thread</b> cannot be reclaimed by the
-     VM.
-
-     <p>As this is such an important problem in heavy duty systems and
-     because it is difficult to always guarantee that the remove
-     method is called before exiting a thread, this method has been
-     augmented to lazily remove references to dead threads. In
-     practice, this means that you can be a little sloppy and
-     occasionally forget to call {@link #remove} before exiting a
-     thread. However, you must call <code>remove</code> sometime. If
-     you never call it, then your application is sure to run out of
-     memory.
-     
+     <p>The diagnostic context of a thread is freed when the thread
+     exits. Threads that outlive their task, such as pooled threads,
+     should call this method when the task is done.
   */
   static
   public
   void remove() {
-    if (ht != null) {
-        ht.remove(Thread.currentThread());
-    
-        // Lazily remove dead-thread references in ht.
-        lazyRemove();
-    }
+    stacks.remove();
   }
 
   /**
@@ -412,12 +316,95 @@ public class NDC {
   static
   public
   void setMaxDepth(int maxDepth) {
-    Stack stack = getCurrentStack();    
-    if(stack != null && maxDepth < stack.size()) 
+    ContextStack stack = getCurrentStack();    
+    if(stack != null && maxDepth < stack.size) 
       stack.setSize(maxDepth);
   }
   
   // =====================================================================
+  /**
+     The NDC of one thread. <code>fullMessages[i]</code> is the
+     context string at depth <code>i + 1</code>, valid for
+     <code>i &lt; fullSize</code>, so that {@link #get} only joins the
+     messages pushed since it was last called.
+   */
+  private static final class ContextStack {
+
+    String[] messages;
+    String[] fullMessages;
+    int size;
+    int fullSize;
+
+    ContextStack() {
+      messages = new String[8];
+      fullMessages = new String[8];
+    }
+
+    ContextStack(Stack stack) {
+      int n = stack.size();
+      messages = new String[Math.max(8, n)];
+      fullMessages = new String[messages.length];
+      for(int i = 0; i < n; i++) {
+        messages[i] = ((DiagnosticContext) stack.elementAt(i)).message;
+      }
+      size = n;
+    }
+
+    void push(String message) {
+      if(size == messages.length) {
+        String[] m = new String[size * 2];
+        System.arraycopy(messages, 0, m, 0, size);
+        messages = m;
+        String[] f = new String[size * 2];
+        System.arraycopy(fullMessages, 0, f, 0, fullSize);
+        fullMessages = f;
+      }
+      messages[size++] = message;
+    }
+
+    String pop() {
+      String message = messages[size - 1];
+      setSize(size - 1);
+      return message;
+    }
+
+    void setSize(int newSize) {
+      for(int i = newSize; i < size; i++) {
+        messages[i] = null;
+        fullMessages[i] = null;
+      }
+      size = newSize;
+      if(fullSize > newSize) {
+        fullSize = newSize;
+      }
+    }
+
+    String getFullMessage() {
+      for(; fullSize < size; fullSize++) {
+        if(fullSize == 0) {
+          fullMessages[0] = messages[0];
+        } else {
+          fullMessages[fullSize] = fullMessages[fullSize - 1] + ' '
+            + messages[fullSize];
+        }
+      }
+      return fullMessages[size - 1];
+    }
+
+    Stack toStack() {
+      Stack stack = new Stack();
+      DiagnosticContext parent = null;
+      for(int i = 0; i < size; i++) {
+        parent = new DiagnosticContext(messages[i], parent);
+        stack.push(parent);
+      }
+      return stack;
+    }
+  }
+
+  /**
+     An element of the stacks handed out by {@link #cloneStack}.
+   */
    private static class DiagnosticContext {
 
     String fullMessage;
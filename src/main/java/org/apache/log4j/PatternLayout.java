@@ -19,7 +19,7 @@ package org.apache.log4j;
 
 import org.apache.log4j.spi.LoggingEvent;
 import org.apache.log4j.helpers.PatternParser;
-import org.apache.log4j.helpers.PatternConverter;
+import org.apache.log4j.helpers.PatternPlan;
 
 
 // Contributors:   Nelson Minar <nelson@monkey.org>
@@ -148,6 +148,12 @@ import org.apache.log4j.helpers.PatternConverter;
 
 	 <p>These dedicated date formatters perform significantly
 	 better than {@link java.text.SimpleDateFormat}.
+
+	 <p>Patterns with fractions of a millisecond, for example
+	 <b>%d{HH:mm:ss.SSSSSS}</b> for microseconds, are formatted by
+	 {@link org.apache.log4j.helpers.InstantDateFormat
+	 InstantDateFormat} with the syntax of {@link
+	 java.time.format.DateTimeFormatter}.
      </td>
    </tr>
 
@@ -415,11 +421,15 @@ public class PatternLayout extends Layout {
 
 
   // output buffer appended to when format() is invoked
-  private StringBuffer sbuf = new StringBuffer(BUF_SIZE);
+  private StringBuilder sbuf = new StringBuilder(BUF_SIZE);
+
+  // set when a subclass decorates format(LoggingEvent), which
+  // format(LoggingEvent, StringBuilder) must then go through
+  private final boolean formatsString = overridesFormat(getClass());
 
   private String pattern;
 
-  private PatternConverter head;
+  private PatternPlan plan;
 
   /**
      Constructs a PatternLayout using the DEFAULT_LAYOUT_PATTERN.
@@ -435,8 +445,8 @@ public class PatternLayout extends Layout {
   */
   public PatternLayout(String pattern) {
     this.pattern = pattern;
-    head = createPatternParser((pattern == null) ? DEFAULT_CONVERSION_PATTERN :
-			     pattern).parse();
+    plan = PatternPlan.compile(createPatternParser(
+      (pattern == null) ? DEFAULT_CONVERSION_PATTERN : pattern).parse());
   }
 
    /**
@@ -447,7 +457,7 @@ public class PatternLayout extends Layout {
   public
   void setConversionPattern(String conversionPattern) {
     pattern = conversionPattern;
-    head = createPatternParser(conversionPattern).parse();
+    plan = PatternPlan.compile(createPatternParser(conversionPattern).parse());
   }
 
   /**
@@ -495,17 +505,39 @@ public class PatternLayout extends Layout {
   public String format(LoggingEvent event) {
     // Reset working stringbuffer
     if(sbuf.capacity() > MAX_CAPACITY) {
-      sbuf = new StringBuffer(BUF_SIZE);
+      sbuf = new StringBuilder(BUF_SIZE);
     } else {
       sbuf.setLength(0);
     }
+    formatTo(event, sbuf);
+    return sbuf.toString();
+  }
 
-    PatternConverter c = head;
+  /**
+     Appends the event formatted as specified by the conversion pattern
+     to <code>output</code> without creating a <code>String</code>.
 
-    while(c != null) {
-      c.format(sbuf, event);
-      c = c.next;
+     @since 1.2.18
+  */
+  public void format(LoggingEvent event, StringBuilder output) {
+    if(formatsString) {
+      output.append(format(event));
+    } else {
+      formatTo(event, output);
+    }
+  }
+
+  private void formatTo(LoggingEvent event, StringBuilder output) {
+    plan.format(output, event);
+  }
+
+  private static boolean overridesFormat(Class layoutClass) {
+    try {
+      return layoutClass.getMethod("format",
+        new Class[] { LoggingEvent.class }).getDeclaringClass()
+        != PatternLayout.class;
+    } catch(NoSuchMethodException e) {
+      return false;
     }
-    return sbuf.toString();
   }
 }
@@ -0,0 +1,771 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.log4j;
+
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.log4j.helpers.AppenderAttachableImpl;
+import org.apache.log4j.helpers.ImmutableTypes;
+import org.apache.log4j.helpers.LogLog;
+import org.apache.log4j.spi.AppenderAttachable;
+import org.apache.log4j.spi.LoggingEvent;
+import org.apache.log4j.spi.ParameterizedMessage;
+import org.apache.log4j.spi.ReusableLoggingEvent;
+
+
+/**
+ * An asynchronous appender backed by a preallocated ring buffer.
+ * <p/>
+ * <p>Like {@link AsyncAppender}, this appender collects the events sent
+ * to it and dispatches them from a separate thread to all the appenders
+ * attached to it. Unlike <code>AsyncAppender</code>, logging threads
+ * never take a lock: each one claims a slot of the ring with a
+ * compare-and-set on a shared sequence, stores its event there and
+ * publishes the slot. The dispatcher thread drains all consecutive
+ * published slots in one go.
+ * <p/>
+ * <p>The size of the ring is the <b>BufferSize</b> option rounded up to
+ * the next power of two. When the ring is full, the calling thread
+ * either waits for free space (<b>Blocking</b>, the default) or the
+ * event is discarded and summarized exactly as <code>AsyncAppender</code>
+ * does.
+ * <p/>
+ * <p>The <b>WaitStrategy</b> option determines how the dispatcher waits
+ * for new events: <code>spin</code> (lowest latency, burns a core),
+ * <code>yield</code>, <code>park</code> (the default) or
+ * <code>block</code> (lowest CPU usage, producers signal a condition).
+ * <p/>
+ * <p>The ring and the dispatcher thread are created by {@link
+ * #activateOptions}. Until then, events are appended synchronously.
+ *
+ * @since 1.2.18
+ */
+public class RingBufferAsyncAppender extends ConcurrentAppenderSkeleton
+  implements AppenderAttachable {
+  /**
+   * The default buffer size is set to 1024 events.
+   */
+  public static final int DEFAULT_BUFFER_SIZE = 1024;
+
+  /**
+   * How long a producer parks between two attempts to claim a slot of a
+   * full ring.
+   */
+  private static final long PRODUCER_PARK_NANOS = 1000L;
+
+  /**
+   * Nested appenders.
+   */
+  private final AppenderAttachableImpl appenders =
+    new AppenderAttachableImpl();
+
+  /**
+   * Map of DiscardSummary objects keyed by logger name, also used as
+   * its own monitor.
+   */
+  private final Map discardMap = new HashMap();
+
+  /**
+   * Requested buffer size.
+   */
+  private int bufferSize = DEFAULT_BUFFER_SIZE;
+
+  /**
+   * Should location info be included in dispatched messages.
+   */
+  private boolean locationInfo = false;
+
+  /**
+   * Does appender block when buffer is full.
+   */
+  private boolean blocking = true;
+
+  /**
+   * Are immutable messages rendered by the dispatcher.
+   */
+  private boolean lazyRendering = false;
+
+  /**
+   * Value of the <b>ImmutableClasses</b> option.
+   */
+  private String immutableClasses;
+
+  /**
+   * Tells which messages may be rendered by the dispatcher.
+   */
+  private ImmutableTypes immutableTypes = new ImmutableTypes();
+
+  /**
+   * Name of the wait strategy.
+   */
+  private String waitStrategyName = "park";
+
+  /**
+   * Wait strategy of the dispatcher.
+   */
+  private WaitStrategy waitStrategy = new ParkWaitStrategy();
+
+  /**
+   * Event slots, length is a power of two.
+   */
+  private LoggingEvent[] ring;
+
+  /**
+   * <code>ring.length - 1</code>.
+   */
+  private int mask;
+
+  /**
+   * Sequence number last stored in each slot, -1 if none.
+   * A slot is readable once it holds the sequence the dispatcher
+   * is waiting for.
+   */
+  private AtomicLongArray published;
+
+  /**
+   * Highest sequence claimed by a producer.
+   */
+  private final AtomicLong cursor = new AtomicLong(-1);
+
+  /**
+   * Highest sequence taken out of the ring by the dispatcher.
+   */
+  private final AtomicLong consumed = new AtomicLong(-1);
+
+  /**
+   * Dispatcher, set once the ring has been allocated.
+   */
+  private volatile Thread dispatcher;
+
+  /**
+   * Create new instance.
+   */
+  public RingBufferAsyncAppender() {
+  }
+
+  /**
+   * Allocates the ring buffer and starts the dispatcher thread.
+   */
+  public void activateOptions() {
+    if (dispatcher != null) {
+      LogLog.warn("RingBufferAsyncAppender [" + name
+        + "] has already been activated.");
+      return;
+    }
+    int capacity = 1;
+    while (capacity < bufferSize) {
+      capacity <<= 1;
+    }
+    ring = new LoggingEvent[capacity];
+    mask = capacity - 1;
+    published = new AtomicLongArray(capacity);
+    for (int i = 0; i < capacity; i++) {
+      published.set(i, -1);
+    }
+
+    Thread thread = new Thread(new Dispatcher(this));
+
+    // It is the user's responsibility to close appenders before
+    // exiting.
+    thread.setDaemon(true);
+    thread.setName("RingBufferAsyncAppender-Dispatcher-" + thread.getName());
+    dispatcher = thread;
+    thread.start();
+  }
+
+  /**
+   * Add appender.
+   *
+   * @param newAppender appender to add, may not be null.
+   */
+  public void addAppender(final Appender newAppender) {
+    appenders.addAppender(newAppender);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void append(LoggingEvent event) {
+    //
+    //   if not activated or the dispatcher thread has died then
+    //      append subsequent events synchronously
+    //
+    Thread thread = dispatcher;
+    if ((thread == null) || !thread.isAlive()) {
+      appenders.appendLoopOnAppenders(event);
+      return;
+    }
+
+    // The event outlives this call, it must not be recycled.
+    event = ReusableLoggingEvent.toImmutable(event);
+
+    // Set the NDC and thread name for the calling thread as these
+    // LoggingEvent fields were not set at event creation time.
+    event.getNDC();
+    event.getThreadName();
+    // Get a copy of this thread's MDC.
+    event.getMDCCopy();
+    if (locationInfo) {
+      event.getLocationInformation();
+    }
+    Object message = event.getMessage();
+    if (!lazyRendering || !immutableTypes.isImmutable(message)) {
+      event.getRenderedMessage();
+    } else if (message instanceof ParameterizedMessage) {
+      // the dispatcher formats it, after the caller may reuse the array
+      ((ParameterizedMessage) message).copyArguments();
+    }
+    event.getThrowableStrRep();
+
+    boolean mayWait = blocking && Thread.currentThread() != thread;
+    boolean interrupted = false;
+    while (true) {
+      long sequence = claim();
+      if (sequence >= 0) {
+        int index = (int) sequence & mask;
+        ring[index] = event;
+        published.lazySet(index, sequence);
+        waitStrategy.signal();
+        return;
+      }
+
+      //
+      //   Following code is only reachable if the ring is full
+      //
+      if (!mayWait || closed) {
+        break;
+      }
+      if (Thread.interrupted()) {
+        interrupted = true;
+        break;
+      }
+      LockSupport.parkNanos(this, PRODUCER_PARK_NANOS);
+    }
+
+    //
+    //   reset interrupt status so calling code can see
+    //   interrupt on their next wait or sleep.
+    //
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+    discard(event);
+  }
+
+  /**
+   * Claims the next free sequence.
+   *
+   * @return claimed sequence or -1 if the ring is full.
+   */
+  private long claim() {
+    int capacity = ring.length;
+    while (true) {
+      long current = cursor.get();
+      long next = current + 1;
+      if (next - capacity > consumed.get()) {
+        return -1;
+      }
+      if (cursor.compareAndSet(current, next)) {
+        return next;
+      }
+    }
+  }
+
+  /**
+   * Returns true if the slot for <code>sequence</code> has been published.
+   */
+  boolean isPublished(final long sequence) {
+    return published.get((int) sequence & mask) == sequence;
+  }
+
+  /**
+   * Adds event to the discard map.
+   *
+   * @param event discarded event.
+   */
+  private void discard(final LoggingEvent event) {
+    synchronized (discardMap) {
+      String loggerName = event.getLoggerName();
+      AsyncAppender.DiscardSummary summary =
+        (AsyncAppender.DiscardSummary) discardMap.get(loggerName);
+
+      if (summary == null) {
+        summary = new AsyncAppender.DiscardSummary(event);
+        discardMap.put(loggerName, summary);
+      } else {
+        summary.add(event);
+      }
+    }
+  }
+
+  /**
+   * Close this appender by stopping the dispatcher thread which will
+   * process all pending events before exiting, then close all attached
+   * appenders.
+   */
+  public void close() {
+    closed = true;
+    Thread thread = dispatcher;
+    if (thread != null) {
+      waitStrategy.signalAll();
+      try {
+        thread.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        LogLog.error(
+          "Got an InterruptedException while waiting for the "
+          + "dispatcher to finish.", e);
+      }
+    }
+
+    //
+    //    close all attached appenders.
+    //
+    Enumeration iter = appenders.getAllAppenders();
+
+    if (iter != null) {
+      while (iter.hasMoreElements()) {
+        ((Appender) iter.nextElement()).close();
+      }
+    }
+  }
+
+  /**
+   * Get iterator over attached appenders.
+   * @return iterator or null if no attached appenders.
+   */
+  public Enumeration getAllAppenders() {
+    return appenders.getAllAppenders();
+  }
+
+  /**
+   * Get appender by name.
+   *
+   * @param name name, may not be null.
+   * @return matching appender or null.
+   */
+  public Appender getAppender(final String name) {
+    return appenders.getAppender(name);
+  }
+
+  /**
+   * Determines if specified appender is attached.
+   * @param appender appender.
+   * @return true if attached.
+   */
+  public boolean isAttached(final Appender appender) {
+    return appenders.isAttached(appender);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public boolean requiresLayout() {
+    return false;
+  }
+
+  /**
+   * Removes and closes all attached appenders.
+   */
+  public void removeAllAppenders() {
+    appenders.removeAllAppenders();
+  }
+
+  /**
+   * Removes an appender.
+   * @param appender appender to remove.
+   */
+  public void removeAppender(final Appender appender) {
+    appenders.removeAppender(appender);
+  }
+
+  /**
+   * Remove appender by name.
+   * @param name name.
+   */
+  public void removeAppender(final String name) {
+    appenders.removeAppender(name);
+  }
+
+  /**
+   * Gets whether the location of the logging request call
+   * should be captured.
+   *
+   * @return the current value of the <b>LocationInfo</b> option.
+   */
+  public boolean getLocationInfo() {
+    return locationInfo;
+  }
+
+  /**
+   * The <b>LocationInfo</b> option takes a boolean value. By default, it is
+   * set to false which means there will be no effort to extract the location
+   * information related to the event. See {@link
+   * AsyncAppender#setLocationInfo}.
+   *
+   * @param flag true if location information should be extracted.
+   */
+  public void setLocationInfo(final boolean flag) {
+    locationInfo = flag;
+  }
+
+  /**
+   * The <b>LazyRendering</b> option takes a boolean value. When true,
+   * immutable messages are rendered on the dispatcher thread rather than
+   * the calling thread. See {@link AsyncAppender#setLazyRendering}.
+   *
+   * @since 1.2.18
+   * @param flag true if immutable messages should be rendered by the
+   * dispatcher thread.
+   */
+  public void setLazyRendering(final boolean flag) {
+    lazyRendering = flag;
+  }
+
+  /**
+   * Gets whether immutable messages are rendered by the dispatcher thread.
+   *
+   * @since 1.2.18
+   * @return the current value of the <b>LazyRendering</b> option.
+   */
+  public boolean getLazyRendering() {
+    return lazyRendering;
+  }
+
+  /**
+   * The <b>ImmutableClasses</b> option takes a comma separated list of
+   * the names of further immutable message classes. See {@link
+   * AsyncAppender#setImmutableClasses}.
+   *
+   * @since 1.2.18
+   * @param classNames class names, may be null.
+   */
+  public void setImmutableClasses(final String classNames) {
+    immutableClasses = classNames;
+    immutableTypes = new ImmutableTypes(classNames);
+  }
+
+  /**
+   * Gets the names of further immutable message classes.
+   *
+   * @since 1.2.18
+   * @return the current value of the <b>ImmutableClasses</b> option.
+   */
+  public String getImmutableClasses() {
+    return immutableClasses;
+  }
+
+  /**
+   * Sets the number of events the ring can hold. The value is rounded up
+   * to the next power of two. Has no effect once the appender has been
+   * activated.
+   *
+   * @param size buffer size, must be positive.
+   */
+  public void setBufferSize(final int size) {
+    if (size < 0) {
+      throw new java.lang.NegativeArraySizeException("size");
+    }
+    bufferSize = (size < 1) ? 1 : size;
+  }
+
+  /**
+   * Gets the current buffer size.
+   * @return the current value of the <b>BufferSize</b> option.
+   */
+  public int getBufferSize() {
+    return bufferSize;
+  }
+
+  /**
+   * Sets whether appender should wait if there is no
+   * space available in the ring or immediately return.
+   *
+   * @param value true if appender should wait until available space in ring.
+   */
+  public void setBlocking(final boolean value) {
+    blocking = value;
+  }
+
+  /**
+   * Gets whether appender should block calling thread when the ring is
+   * full.
+   *
+   * @return true if calling thread will be blocked when the ring is full.
+   */
+  public boolean getBlocking() {
+    return blocking;
+  }
+
+  /**
+   * Sets how the dispatcher waits for new events, one of
+   * <code>spin</code>, <code>yield</code>, <code>park</code> or
+   * <code>block</code>. Has no effect once the appender has been
+   * activated.
+   *
+   * @param value name of the wait strategy.
+   */
+  public void setWaitStrategy(final String value) {
+    if (dispatcher != null) {
+      LogLog.warn("WaitStrategy of RingBufferAsyncAppender [" + name
+        + "] cannot be changed after activation.");
+      return;
+    }
+    if ("spin".equalsIgnoreCase(value)) {
+      waitStrategy = new SpinWaitStrategy();
+    } else if ("yield".equalsIgnoreCase(value)) {
+      waitStrategy = new YieldWaitStrategy();
+    } else if ("park".equalsIgnoreCase(value)) {
+      waitStrategy = new ParkWaitStrategy();
+    } else if ("block".equalsIgnoreCase(value)) {
+      waitStrategy = new BlockingWaitStrategy();
+    } else {
+      LogLog.warn("Unknown WaitStrategy [" + value
+        + "], using [" + waitStrategyName + "].");
+      return;
+    }
+    waitStrategyName = value.toLowerCase();
+  }
+
+  /**
+   * Gets the name of the wait strategy.
+   *
+   * @return the current value of the <b>WaitStrategy</b> option.
+   */
+  public String getWaitStrategy() {
+    return waitStrategyName;
+  }
+
+  /**
+   * Determines how the dispatcher waits when no event is published.
+   */
+  abstract static class WaitStrategy {
+    /**
+     * Called by the dispatcher each time it finds no published event.
+     *
+     * @param parent   appender whose ring is empty.
+     * @param sequence sequence the dispatcher waits for.
+     * @param counter  number of consecutive idle calls so far.
+     * @return new value of the counter.
+     * @throws InterruptedException if the dispatcher was interrupted.
+     */
+    abstract int idle(RingBufferAsyncAppender parent, long sequence,
+                      int counter) throws InterruptedException;
+
+    /**
+     * Called by a producer after publishing an event.
+     */
+    void signal() {
+    }
+
+    /**
+     * Called when the appender is closed.
+     */
+    void signalAll() {
+    }
+  }
+
+  /**
+   * Busy spins.
+   */
+  private static final class SpinWaitStrategy extends WaitStrategy {
+    int idle(final RingBufferAsyncAppender parent, final long sequence,
+             final int counter) {
+      return counter + 1;
+    }
+  }
+
+  /**
+   * Spins for a while, then yields the processor.
+   */
+  private static final class YieldWaitStrategy extends WaitStrategy {
+    private static final int SPIN_TRIES = 100;
+
+    int idle(final RingBufferAsyncAppender parent, final long sequence,
+             final int counter) {
+      if (counter >= SPIN_TRIES) {
+        Thread.yield();
+      }
+      return counter + 1;
+    }
+  }
+
+  /**
+   * Spins, yields, then parks for increasingly long periods up to one
+   * millisecond.
+   */
+  private static final class ParkWaitStrategy extends WaitStrategy {
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 200;
+    private static final long MAX_PARK_NANOS = 1000000L;
+
+    int idle(final RingBufferAsyncAppender parent, final long sequence,
+             final int counter) {
+      if (counter >= YIELD_TRIES) {
+        long nanos = 1000L << Math.min(counter - YIELD_TRIES, 10);
+        LockSupport.parkNanos(this, Math.min(nanos, MAX_PARK_NANOS));
+      } else if (counter >= SPIN_TRIES) {
+        Thread.yield();
+      }
+      return counter + 1;
+    }
+  }
+
+  /**
+   * Waits on a condition which producers signal, but only when the
+   * dispatcher has announced that it is about to wait.
+   */
+  private static final class BlockingWaitStrategy extends WaitStrategy {
+    private static final long MAX_WAIT_NANOS = 100000000L;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition published = lock.newCondition();
+    private final AtomicBoolean signalNeeded = new AtomicBoolean(false);
+
+    int idle(final RingBufferAsyncAppender parent, final long sequence,
+             final int counter) throws InterruptedException {
+      lock.lock();
+      try {
+        signalNeeded.set(true);
+        if (!parent.isPublished(sequence) && !parent.closed) {
+          published.awaitNanos(MAX_WAIT_NANOS);
+        }
+      } finally {
+        lock.unlock();
+      }
+      return counter + 1;
+    }
+
+    void signal() {
+      if (signalNeeded.getAndSet(false)) {
+        signalAll();
+      }
+    }
+
+    void signalAll() {
+      lock.lock();
+      try {
+        published.signalAll();
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Event dispatcher.
+   */
+  private static class Dispatcher implements Runnable {
+    /**
+     * Parent appender.
+     */
+    private final RingBufferAsyncAppender parent;
+
+    /**
+     * Create new instance of dispatcher.
+     *
+     * @param parent parent appender, may not be null.
+     */
+    public Dispatcher(final RingBufferAsyncAppender parent) {
+      this.parent = parent;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void run() {
+      final LoggingEvent[] ring = parent.ring;
+      final int mask = parent.mask;
+      final LoggingEvent[] events = new LoggingEvent[ring.length];
+      long next = parent.consumed.get() + 1;
+      int idle = 0;
+
+      try {
+        //
+        //   loop until the appender is closed and the ring drained.
+        //
+        while (true) {
+          //
+          //   take all consecutive published events out of the ring
+          //
+          int count = 0;
+          while (count < events.length && parent.isPublished(next + count)) {
+            int index = (int) (next + count) & mask;
+            events[count++] = ring[index];
+            ring[index] = null;
+          }
+
+          if (count > 0) {
+            next += count;
+            //
+            //    allow blocked appends to continue
+            parent.consumed.set(next - 1);
+            dispatch(events, count);
+            idle = 0;
+          } else if (parent.closed && next > parent.cursor.get()) {
+            break;
+          } else {
+            idle = parent.waitStrategy.idle(parent, next, idle);
+          }
+        }
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    /**
+     * Passes events and the summaries of discarded events to the
+     * nested appenders.
+     *
+     * @param events events, entries are cleared once dispatched.
+     * @param count  number of events.
+     */
+    private void dispatch(final LoggingEvent[] events, final int count) {
+      parent.appenders.appendLoopOnAppenders(events, count);
+      for (int i = 0; i < count; i++) {
+        events[i] = null;
+      }
+
+      LoggingEvent[] summaries = null;
+      synchronized (parent.discardMap) {
+        if (!parent.discardMap.isEmpty()) {
+          summaries = new LoggingEvent[parent.discardMap.size()];
+          int index = 0;
+          for (
+            Iterator iter = parent.discardMap.values().iterator();
+              iter.hasNext();) {
+            summaries[index++] =
+              ((AsyncAppender.DiscardSummary) iter.next()).createEvent();
+          }
+          parent.discardMap.clear();
+        }
+      }
+      if (summaries != null) {
+        parent.appenders.appendLoopOnAppenders(summaries, summaries.length);
+      }
+    }
+  }
+}
@@ -23,10 +23,16 @@ import java.io.IOException;
 import java.io.Writer;
 import java.io.File;
 import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedList;
 
 import org.apache.log4j.helpers.OptionConverter;
 import org.apache.log4j.helpers.LogLog;
 import org.apache.log4j.helpers.CountingQuietWriter;
+import org.apache.log4j.helpers.FileCompressor;
+import org.apache.log4j.helpers.RolloverExecutor;
+import org.apache.log4j.spi.CompressionCodec;
 import org.apache.log4j.spi.LoggingEvent;
 
 /**
@@ -54,8 +60,59 @@ public class RollingFileAppender extends FileAppender {
    */
   protected int  maxBackupIndex  = 1;
 
+  /**
+     Shift backup files on a background thread, false by default.
+  */
+  protected boolean asyncRollover = false;
+
+  /**
+     Value of the <b>Compression</b> option, <code>null</code> by
+     default.
+  */
+  protected String compression;
+
+  /**
+     Codec compressing the backup files, <code>null</code> for none.
+  */
+  private CompressionCodec codec;
+
+  /**
+     Value of the <b>BackupScheme</b> option, "index" by default.
+  */
+  protected String backupScheme = INDEX_SCHEME;
+
+  static final String INDEX_SCHEME = "index";
+  static final String SEQUENCE_SCHEME = "sequence";
+
   private long nextRollover = 0;
 
+  /**
+     Backup files of the sequence scheme, oldest first, without the
+     codec extension. Filled in by the first sequential rollover.
+   */
+  private LinkedList segments;
+
+  /**
+     Backup files of the sequence scheme queued for compression. They
+     are deleted behind the queued compressions rather than directly.
+   */
+  private final HashSet compressing = new HashSet();
+
+  /**
+     Sequence number of the newest backup file.
+   */
+  private long sequence;
+
+  /**
+     Performs asynchronous rollovers, created with the first one.
+   */
+  private RolloverExecutor rolloverExecutor;
+
+  /**
+     Number of asynchronous rollovers, to name the rolled files.
+   */
+  private int rolloverCount;
+
   /**
      The default constructor simply calls its {@link
      FileAppender#FileAppender parents constructor}.  */
@@ -125,23 +182,23 @@ public class RollingFileAppender extends FileAppender {
    */
   public // synchronization not necessary since doAppend is alreasy synched
   void rollOver() {
-    File target;
-    File file;
-
-    if (qw != null) {
-        long size = ((CountingQuietWriter) qw).getCount();
-        LogLog.debug("rolling over count=" + size);
-        //   if operation fails, do not roll again until
-        //      maxFileSize more bytes are written
-        nextRollover = size + maxFileSize;
+    if(SEQUENCE_SCHEME.equals(backupScheme) && maxBackupIndex > 0) {
+      sequentialRollOver();
+      return;
+    }
+    if((asyncRollover || codec != null) && maxBackupIndex > 0) {
+      asyncRollOver();
+      return;
     }
+
+    deferNextRollover();
     LogLog.debug("maxBackupIndex="+maxBackupIndex);
 
-    boolean renameSucceeded = true;
     // If maxBackups <= 0, then there is no file renaming to be done.
     if(maxBackupIndex > 0) {
       // Delete the oldest file, to keep Windows happy.
-      file = new File(fileName + '.' + maxBackupIndex);
+      File file = new File(fileName + '.' + maxBackupIndex);
+      boolean renameSucceeded = true;
       if (file.exists())
        renameSucceeded = file.delete();
 
@@ -149,54 +206,221 @@ public class RollingFileAppender extends FileAppender {
       for (int i = maxBackupIndex - 1; i >= 1 && renameSucceeded; i--) {
 	file = new File(fileName + "." + i);
 	if (file.exists()) {
-	  target = new File(fileName + '.' + (i + 1));
+	  File target = new File(fileName + '.' + (i + 1));
 	  LogLog.debug("Renaming file " + file + " to " + target);
 	  renameSucceeded = file.renameTo(target);
 	}
       }
 
-    if(renameSucceeded) {
-      // Rename fileName to fileName.1
-      target = new File(fileName + "." + 1);
+      if(renameSucceeded) {
+        // Rename fileName to fileName.1
+        rollFileTo(new File(fileName + "." + 1));
+      }
+    } else {
+      rollFileTo(null);
+    }
+  }
 
-      this.closeFile(); // keep windows happy.
+  /**
+     Keeps the appender from rolling over again before
+     <code>MaxFileSize</code> more bytes are written, in case the
+     rollover fails.
+   */
+  private
+  void deferNextRollover() {
+    if (qw != null) {
+      long size = ((CountingQuietWriter) qw).getCount();
+      LogLog.debug("rolling over count=" + size);
+      nextRollover = size + maxFileSize;
+    }
+  }
+
+  /**
+     Closes <code>File</code>, renames it to <code>target</code> and
+     reopens it. The file is truncated if <code>target</code> is null,
+     and appended to if the rename fails.
 
-      file = new File(fileName);
+     @return <code>true</code> if the file was renamed or truncated.
+   */
+  private
+  boolean rollFileTo(File target) {
+    this.closeFile(); // keep windows happy.
+    boolean renameSucceeded = true;
+    if (target != null) {
+      File file = new File(fileName);
       LogLog.debug("Renaming file " + file + " to " + target);
       renameSucceeded = file.renameTo(target);
-      //
-      //   if file rename failed, reopen file with append = true
-      //
-      if (!renameSucceeded) {
-          try {
-            this.setFile(fileName, true, bufferedIO, bufferSize);
-          }
-          catch(IOException e) {
-              if (e instanceof InterruptedIOException) {
-                  Thread.currentThread().interrupt();
-              }
-              LogLog.error("setFile("+fileName+", true) call failed.", e);
-          }
-      }
     }
-    }
-
-    //
-    //   if all renames were successful, then
-    //
-    if (renameSucceeded) {
     try {
       // This will also close the file. This is OK since multiple
       // close operations are safe.
-      this.setFile(fileName, false, bufferedIO, bufferSize);
-      nextRollover = 0;
+      this.setFile(fileName, !renameSucceeded, bufferedIO, bufferSize);
+      if (renameSucceeded) {
+        nextRollover = 0;
+      }
     }
     catch(IOException e) {
         if (e instanceof InterruptedIOException) {
             Thread.currentThread().interrupt();
         }
-        LogLog.error("setFile("+fileName+", false) call failed.", e);
+        LogLog.error("setFile("+fileName+", "+!renameSucceeded+") call failed.", e);
+    }
+    return renameSucceeded;
+  }
+
+  /**
+     Rolls over without waiting for the backup files to be shifted.
+
+     <p><code>File</code> is closed, renamed to a unique temporary name
+     and reopened empty, which is all the logging thread waits for. A
+     background thread then shifts the backup files as {@link
+     #rollOver} does and renames the temporary file to
+     <code>File.1</code>, or compresses it to <code>File.1</code>
+     followed by the codec extension if <b>Compression</b> is set.
+     Rollovers are processed in order, and {@link #close} waits for
+     the pending ones. When too many are pending the rollover is
+     postponed, the log file growing past <code>MaxFileSize</code>,
+     rather than shifting files on the logging thread.
+   */
+  private
+  void asyncRollOver() {
+    deferNextRollover();
+    if (rolloverExecutor == null) {
+      rolloverExecutor = new RolloverExecutor("log4j rollover "+fileName, 64);
+    }
+    if (!rolloverExecutor.hasCapacity()) {
+      // shifting here would race with the pending shifts
+      LogLog.warn("Too many rollovers pending, [" + fileName
+                  + "] will roll over after " + maxFileSize
+                  + " more bytes.");
+      return;
+    }
+    File rolled = new File(fileName + ".rolling." + System.currentTimeMillis()
+                           + '.' + (++rolloverCount));
+    if (rollFileTo(rolled)
+        && !rolloverExecutor.offer(
+              new BackupShift(fileName, maxBackupIndex, rolled, codec))) {
+      LogLog.warn("Could not queue backup shift, rolled file left as ["
+                  + rolled + "].");
+    }
+  }
+
+  /**
+     Rolls over to the next backup file of the sequence scheme.
+
+     <p><code>File</code> is renamed to <code>File.N</code> where
+     <code>N</code> is one more than the newest backup, and only the
+     oldest backup is deleted once there are more than
+     <code>MaxBackupIndex</code> of them. The cost of a rollover thus
+     does not depend on <code>MaxBackupIndex</code>.
+   */
+  private
+  void sequentialRollOver() {
+    deferNextRollover();
+    if (segments == null) {
+      findSegments();
+    }
+
+    File target = new File(fileName + '.' + (sequence + 1));
+    if (!rollFileTo(target)) {
+      return;
+    }
+
+    sequence++;
+    segments.addLast(target);
+    if (codec != null) {
+      if (FileCompressor.compressInBackground(target, codec)) {
+        compressing.add(target);
+      } else {
+        LogLog.warn("Too many files waiting for compression, leaving ["
+                    + target + "] uncompressed.");
+      }
+    }
+    while (segments.size() > maxBackupIndex) {
+      File oldest = (File) segments.getFirst();
+      if (codec != null && compressing.contains(oldest)) {
+        if (!FileCompressor.deleteInBackground(oldest, codec)) {
+          // still queued for compression, retry next time
+          break;
+        }
+        compressing.remove(oldest);
+      } else {
+        LogLog.debug("Deleting file " + oldest);
+        oldest.delete();
+        if (codec != null) {
+          new File(oldest.getPath() + codec.getFileExtension()).delete();
+        }
+      }
+      segments.removeFirst();
+    }
+  }
+
+  /**
+     Lists the backup files of the sequence scheme left by previous
+     runs, so that numbering resumes after the newest one and the
+     oldest are deleted first.
+   */
+  private
+  void findSegments() {
+    segments = new LinkedList();
+    sequence = 0;
+    File file = new File(fileName).getAbsoluteFile();
+    File dir = file.getParentFile();
+    String[] names = dir == null ? null : dir.list();
+    if (names == null) {
+      return;
+    }
+    String prefix = file.getName() + '.';
+    String ext = codec == null ? null : codec.getFileExtension();
+    long[] found = new long[names.length];
+    int count = 0;
+    for (int i = 0; i < names.length; i++) {
+      String name = names[i];
+      if (!name.startsWith(prefix)) {
+        continue;
+      }
+      String suffix = name.substring(prefix.length());
+      if (ext != null && suffix.endsWith(ext)) {
+        suffix = suffix.substring(0, suffix.length() - ext.length());
+      }
+      try {
+        long n = Long.parseLong(suffix);
+        if (n > 0) {
+          found[count++] = n;
+        }
+      } catch(NumberFormatException e) {
+        // not a backup file
+      }
+    }
+    Arrays.sort(found, 0, count);
+    for (int i = 0; i < count; i++) {
+      // a file may be present both compressed and not
+      if (i == 0 || found[i] != found[i - 1]) {
+        segments.addLast(new File(fileName + '.' + found[i]));
+      }
     }
+    if (count > 0) {
+      sequence = found[count - 1];
+    }
+  }
+
+  /**
+     Closes the file and waits for pending asynchronous rollovers. The
+     wait happens after the appender lock is released, so that other
+     threads logging to this appender are not blocked by it.
+
+     @since 1.2.18
+   */
+  public
+  void close() {
+    RolloverExecutor executor;
+    synchronized(this) {
+      super.close();
+      executor = rolloverExecutor;
+      rolloverExecutor = null;
+    }
+    if (executor != null) {
+      executor.shutdown(60000);
     }
   }
 
@@ -204,6 +428,9 @@ public class RollingFileAppender extends FileAppender {
   synchronized
   void setFile(String fileName, boolean append, boolean bufferedIO, int bufferSize)
                                                                  throws IOException {
+    if (!fileName.equals(this.fileName)) {
+      segments = null;
+    }
     super.setFile(fileName, append, this.bufferedIO, this.bufferSize);
     if(append) {
       File f = new File(fileName);
@@ -226,6 +453,104 @@ public class RollingFileAppender extends FileAppender {
     this.maxBackupIndex = maxBackups;
   }
 
+  /**
+     The <b>AsyncRollover</b> option takes a boolean value, false by
+     default. If true, rollovers only rename the log file and open a
+     new one on the logging thread; the backup files are shifted on a
+     background thread.
+
+     <p>Rolled files waiting to be shifted are named
+     <code>File.rolling.*</code>. Such files left over by an abrupt
+     termination are not cleaned up.
+
+     @since 1.2.18
+   */
+  public
+  void setAsyncRollover(boolean asyncRollover) {
+    this.asyncRollover = asyncRollover;
+  }
+
+  /**
+     Returns the value of the <b>AsyncRollover</b> option.
+
+     @since 1.2.18
+   */
+  public
+  boolean getAsyncRollover() {
+    return asyncRollover;
+  }
+
+  /**
+     The <b>Compression</b> option selects how backup files are
+     compressed: "none", the default, "gzip", or the name of a class
+     implementing {@link CompressionCodec}. Backup files are then named
+     <code>File.1.gz</code>, <code>File.2.gz</code> and so on.
+
+     <p>Compression runs on the background thread of asynchronous
+     rollovers, so setting this option implies <b>AsyncRollover</b>.
+
+     @since 1.2.18
+   */
+  public
+  void setCompression(String compression) {
+    this.compression = compression;
+    this.codec = FileCompressor.getCodec(compression);
+  }
+
+  /**
+     Returns the value of the <b>Compression</b> option.
+
+     @since 1.2.18
+   */
+  public
+  String getCompression() {
+    return compression;
+  }
+
+  /**
+     The <b>BackupScheme</b> option selects how backup files are named.
+
+     <p>With "index", the default, the newest backup is always
+     <code>File.1</code> and every rollover renames each backup file
+     to the next index, up to <code>MaxBackupIndex</code> renames.
+
+     <p>With "sequence", each rollover renames <code>File</code> to
+     <code>File.N</code> with <code>N</code> one more than the newest
+     backup, so the highest number is the newest, and at most the
+     oldest backup is deleted. <code>MaxBackupIndex</code> is the number
+     of backups kept. With <b>Compression</b>, backup files are
+     compressed in the background and the oldest may be left
+     uncompressed when many are waiting; old backups are then deleted
+     in the background too, once their compression is done. The <b>AsyncRollover</b>
+     option does not apply to this scheme.
+
+     @since 1.2.18
+   */
+  public
+  void setBackupScheme(String backupScheme) {
+    String scheme = backupScheme == null ? null : backupScheme.trim();
+    if (SEQUENCE_SCHEME.equalsIgnoreCase(scheme)) {
+      this.backupScheme = SEQUENCE_SCHEME;
+    } else if (INDEX_SCHEME.equalsIgnoreCase(scheme)) {
+      this.backupScheme = INDEX_SCHEME;
+    } else {
+      LogLog.warn("Unknown BackupScheme [" + backupScheme
+                  + "], using \"" + INDEX_SCHEME + "\".");
+      this.backupScheme = INDEX_SCHEME;
+    }
+    segments = null;
+  }
+
+  /**
+     Returns the value of the <b>BackupScheme</b> option.
+
+     @since 1.2.18
+   */
+  public
+  String getBackupScheme() {
+    return backupScheme;
+  }
+
   /**
      Set the maximum size that the output file is allowed to reach
      before being rolled over to backup files.
@@ -281,4 +606,55 @@ public class RollingFileAppender extends FileAppender {
         }
     }
    }
+
+  /**
+     Shifts the backup files and moves, or compresses, a rolled file to
+     <code>File.1</code>.
+   */
+  private static final class BackupShift implements Runnable {
+    private final String fileName;
+    private final int maxBackupIndex;
+    private final File rolled;
+    private final CompressionCodec codec;
+
+    BackupShift(String fileName, int maxBackupIndex, File rolled,
+                CompressionCodec codec) {
+      this.fileName = fileName;
+      this.maxBackupIndex = maxBackupIndex;
+      this.rolled = rolled;
+      this.codec = codec;
+    }
+
+    public void run() {
+      String ext = codec == null ? "" : codec.getFileExtension();
+      boolean renameSucceeded = true;
+      File file = new File(fileName + '.' + maxBackupIndex + ext);
+      if (file.exists())
+        renameSucceeded = file.delete();
+
+      // Map {(maxBackupIndex - 1), ..., 2, 1} to {maxBackupIndex, ..., 3, 2}
+      for (int i = maxBackupIndex - 1; i >= 1 && renameSucceeded; i--) {
+        file = new File(fileName + "." + i + ext);
+        if (file.exists()) {
+          File target = new File(fileName + '.' + (i + 1) + ext);
+          LogLog.debug("Renaming file " + file + " to " + target);
+          renameSucceeded = file.renameTo(target);
+        }
+      }
+
+      File target = new File(fileName + "." + 1 + ext);
+      if (renameSucceeded) {
+        if (codec == null) {
+          LogLog.debug("Renaming file " + rolled + " to " + target);
+          renameSucceeded = rolled.renameTo(target);
+        } else {
+          renameSucceeded = FileCompressor.compress(rolled, target, codec);
+        }
+      }
+      if (!renameSucceeded) {
+        LogLog.error("Could not shift backup files of " + fileName
+                     + ", rolled file left as " + rolled);
+      }
+    }
+  }
 }
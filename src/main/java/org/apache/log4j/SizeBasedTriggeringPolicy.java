@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.log4j;
+
+import org.apache.log4j.helpers.OptionConverter;
+import org.apache.log4j.spi.LoggingEvent;
+import org.apache.log4j.spi.TriggeringPolicy;
+
+/**
+   Triggers a rollover when the file has reached the size of the
+   <b>MaxFileSize</b> option.
+
+   @since 1.2.18
+ */
+public class SizeBasedTriggeringPolicy implements TriggeringPolicy {
+
+  private long maxFileSize = 10*1024*1024;
+
+  public
+  SizeBasedTriggeringPolicy() {
+  }
+
+  public
+  SizeBasedTriggeringPolicy(long maxFileSize) {
+    this.maxFileSize = maxFileSize;
+  }
+
+  /**
+     The <b>MaxFileSize</b> option takes a size in bytes, optionally
+     followed by "KB", "MB" or "GB", 10MB by default.
+   */
+  public
+  void setMaxFileSize(String value) {
+    maxFileSize = OptionConverter.toFileSize(value, maxFileSize + 1);
+  }
+
+  /**
+     Sets the maximum file size in bytes, see {@link #setMaxFileSize}.
+   */
+  public
+  void setMaximumFileSize(long maxFileSize) {
+    this.maxFileSize = maxFileSize;
+  }
+
+  /**
+     Returns the maximum file size in bytes.
+   */
+  public
+  long getMaximumFileSize() {
+    return maxFileSize;
+  }
+
+  public
+  void activateOptions() {
+  }
+
+  public
+  void fileOpened(long time) {
+  }
+
+  public
+  boolean isTriggeringEvent(LoggingEvent event, long fileLength) {
+    return fileLength > 0 && fileLength >= maxFileSize;
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.log4j;
+
+import java.util.Date;
+
+import org.apache.log4j.helpers.LogLog;
+import org.apache.log4j.spi.LoggingEvent;
+import org.apache.log4j.spi.TriggeringPolicy;
+
+/**
+   Triggers a rollover when an event falls in a new period of the
+   <b>DatePattern</b> option, which has the same meaning as in {@link
+   DailyRollingFileAppender}.
+
+   <p>The start of the next period is computed when a file is opened,
+   so checking an event only compares its time stamp to it.
+
+   @since 1.2.18
+ */
+public class TimeBasedTriggeringPolicy implements TriggeringPolicy {
+
+  private String datePattern = "'.'yyyy-MM-dd";
+
+  private RollingCalendar rc;
+
+  /**
+     Start of the next period, in milliseconds.
+   */
+  private long nextCheck = Long.MAX_VALUE;
+
+  public
+  TimeBasedTriggeringPolicy() {
+  }
+
+  public
+  TimeBasedTriggeringPolicy(String datePattern) {
+    this.datePattern = datePattern;
+    activateOptions();
+  }
+
+  /**
+     The <b>DatePattern</b> option takes a string in the format
+     expected by {@link java.text.SimpleDateFormat}, "'.'yyyy-MM-dd" by
+     default, and determines the rollover schedule.
+   */
+  public
+  void setDatePattern(String datePattern) {
+    this.datePattern = datePattern;
+  }
+
+  /**
+     Returns the value of the <b>DatePattern</b> option.
+   */
+  public
+  String getDatePattern() {
+    return datePattern;
+  }
+
+  public
+  void activateOptions() {
+    int type = DailyRollingFileAppender.computeCheckPeriod(datePattern);
+    if (type == DailyRollingFileAppender.TOP_OF_TROUBLE) {
+      LogLog.error("Unknown periodicity for DatePattern [" + datePattern + "].");
+      rc = null;
+      return;
+    }
+    rc = new RollingCalendar();
+    rc.setType(type);
+  }
+
+  public
+  void fileOpened(long time) {
+    nextCheck = rc == null ? Long.MAX_VALUE : rc.getNextCheckMillis(new Date(time));
+  }
+
+  public
+  boolean isTriggeringEvent(LoggingEvent event, long fileLength) {
+    return event.getTimeStamp() >= nextCheck;
+  }
+}
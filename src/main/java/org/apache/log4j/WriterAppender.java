@@ -25,6 +25,7 @@ import java.io.Writer;
 
 import org.apache.log4j.helpers.LogLog;
 import org.apache.log4j.helpers.QuietWriter;
+import org.apache.log4j.spi.BatchAppender;
 import org.apache.log4j.spi.ErrorHandler;
 import org.apache.log4j.spi.LoggingEvent;
 
@@ -34,7 +35,7 @@ import org.apache.log4j.spi.LoggingEvent;
 // Ȼϵʧô쳣ֹʱ޷־ϢһƼֵΪtrueʹjvm
 // econdingڶ־ıı뷽ʽ
 // qwд־writerļǿ̨Java IOֵ֧
-public class WriterAppender extends AppenderSkeleton {
+public class WriterAppender extends AppenderSkeleton implements BatchAppender {
 
 
     /**
@@ -65,6 +66,17 @@ public class WriterAppender extends AppenderSkeleton {
      */
     protected QuietWriter qw;
 
+    /**
+     * Set while a batch is being written, see {@link
+     * #doAppend(LoggingEvent[], int)}.
+     */
+    private boolean batching = false;
+
+    /**
+     * Set when an event of the current batch asked for a flush.
+     */
+    private boolean flushPending = false;
+
 
     /**
      * This default constructor does nothing.
@@ -136,6 +148,33 @@ public class WriterAppender extends AppenderSkeleton {
         subAppend(event);
     }
 
+    /**
+     * Append a batch of events. Each event goes through the threshold,
+     * the filters and {@link #append} as with {@link
+     * #doAppend(LoggingEvent)}, but the writer is flushed at most once,
+     * after the last event, if any of the events required a flush.
+     *
+     * @since 1.2.18
+     */
+    public synchronized void doAppend(LoggingEvent[] events, int count) {
+        batching = true;
+        try {
+            for (int i = 0; i < count; i++) {
+                if (isAppendable(events[i])) {
+                    append(events[i]);
+                }
+            }
+        } finally {
+            batching = false;
+        }
+        if (flushPending) {
+            flushPending = false;
+            if (this.qw != null) {
+                this.qw.flush();
+            }
+        }
+    }
+
     /**
      * This method determines if there is a sense in attempting to append.
      * <p/>
@@ -289,8 +328,13 @@ public class WriterAppender extends AppenderSkeleton {
         }
         //жǷ񣬽ˢڴ棬־ϢӲļУimmediateFlushԣ
         if (shouldFlush(event)) {
-            //һ־ӡϢӲļУ
-            this.qw.flush();
+            if (batching) {
+                // the batch is flushed once after its last event
+                flushPending = true;
+            } else {
+                //һ־ӡϢӲļУ
+                this.qw.flush();
+            }
         }
     }
 
@@ -82,7 +82,7 @@ class EventDetails {
      */
     EventDetails(LoggingEvent aEvent) {
 
-        this(aEvent.timeStamp,
+        this(aEvent.getTimeStamp(),
              aEvent.getLevel(),
              aEvent.getLoggerName(),
              aEvent.getNDC(),
@@ -90,7 +90,7 @@ class EventDetails {
              aEvent.getRenderedMessage(),
              aEvent.getThrowableStrRep(),
              (aEvent.getLocationInformation() == null)
-             ? null : aEvent.getLocationInformation().fullInfo);
+             ? null : aEvent.getLocationInformation().getFullInfo());
     }
 
     /** @see #mTimeStamp **/
@@ -67,8 +67,21 @@ public class AbsoluteTimeDateFormat extends DateFormat {
     setCalendar(Calendar.getInstance(timeZone));
   }
 
-  private static long   previousTime;
-  private static char[] previousTimeWithoutMillis = new char[9]; // "HH:mm:ss."
+  /**
+     Formatted second of the last formatted date, never modified once
+     published so that threads can share it without locking.
+   */
+  static final class Prefix {
+    final long time;
+    final char[] chars;
+
+    Prefix(long time, char[] chars) {
+      this.time = time;
+      this.chars = chars;
+    }
+  }
+
+  private transient volatile Prefix prefix; // "HH:mm:ss,"
 
   /**
      Appends to <code>sbuf</code> the time in the format
@@ -85,12 +98,13 @@ public class AbsoluteTimeDateFormat extends DateFormat {
     long now = date.getTime();
     int millis = (int)(now % 1000);
 
-    if ((now - millis) != previousTime || previousTimeWithoutMillis[0] == 0) {
+    Prefix p = prefix;
+    if (p == null || (now - millis) != p.time) {
       // We reach this point at most once per second
       // across all threads instead of each time format()
       // is called. This saves considerable CPU time.
 
-      calendar.setTime(date);
+      Calendar calendar = newCalendar(now);
 
       int start = sbuf.length();
       
@@ -116,12 +130,12 @@ public class AbsoluteTimeDateFormat extends DateFormat {
       sbuf.append(',');      
 
       // store the time string for next time to avoid recomputation
-      sbuf.getChars(start, sbuf.length(), previousTimeWithoutMillis, 0);
-      
-      previousTime = now - millis;
+      char[] chars = new char[sbuf.length() - start];
+      sbuf.getChars(start, sbuf.length(), chars, 0);
+      prefix = new Prefix(now - millis, chars);
     }
     else {
-      sbuf.append(previousTimeWithoutMillis);
+      sbuf.append(p.chars);
     }
     
 
@@ -135,6 +149,42 @@ public class AbsoluteTimeDateFormat extends DateFormat {
     return sbuf;
   }
 
+  /**
+     Returns a calendar set to <code>time</code>, in the time zone of
+     this format. The calendar of the format itself is not modified
+     so that concurrent calls are safe.
+   */
+  Calendar newCalendar(long time) {
+    Calendar c = (Calendar) calendar.clone();
+    c.setTimeInMillis(time);
+    return c;
+  }
+
+  /**
+     Sets the time zone and forgets the cached prefix.
+   */
+  public
+  void setTimeZone(TimeZone zone) {
+    super.setTimeZone(zone);
+    clearCache();
+  }
+
+  /**
+     Sets the calendar and forgets the cached prefix.
+   */
+  public
+  void setCalendar(Calendar newCalendar) {
+    super.setCalendar(newCalendar);
+    clearCache();
+  }
+
+  /**
+     Forgets the prefixes cached by this format.
+   */
+  void clearCache() {
+    prefix = null;
+  }
+
   /**
      This method does not do anything but return <code>null</code>.
    */
@@ -18,10 +18,12 @@
 package org.apache.log4j.helpers;
 
 import org.apache.log4j.spi.AppenderAttachable;
+import org.apache.log4j.spi.BatchAppender;
 import org.apache.log4j.spi.LoggingEvent;
 
 import org.apache.log4j.Appender;
 
+import java.util.Arrays;
 import java.util.Vector;
 import java.util.Enumeration;
 
@@ -33,16 +35,25 @@ import java.util.Enumeration;
  */
 public class AppenderAttachableImpl implements AppenderAttachable {
 
+    private static final Appender[] EMPTY = new Appender[0];
+
     /**
      * Array of appenders.
      */
     protected Vector appenderList;
 
+    /**
+     * Copy-on-write snapshot of <code>appenderList</code>. It is never
+     * modified in place, only replaced as a whole after each change, so
+     * readers may iterate over it without holding any lock.
+     */
+    private volatile Appender[] appenderArray = EMPTY;
+
     /**
      * Attach an appender. If the appender is already in the list in
      * won't be added again.
      */
-    public void addAppender(Appender newAppender) {
+    public synchronized void addAppender(Appender newAppender) {
         // Null values for newAppender parameter are strictly forbidden.
         if (newAppender == null)
             return;
@@ -50,31 +61,64 @@ public class AppenderAttachableImpl implements AppenderAttachable {
         if (appenderList == null) {
             appenderList = new Vector(1);
         }
-        if (!appenderList.contains(newAppender))
+        if (!appenderList.contains(newAppender)) {
             appenderList.addElement(newAppender);
+            publish();
+        }
     }
 
     /**
      * ˷ǵ ־а󶨵AppenderdoAppend
+     * <p/>
+     * <p>The appenders are read from the current snapshot, so this
+     * method never blocks on concurrent additions or removals.
      */
     public int appendLoopOnAppenders(LoggingEvent event) {
-        int size = 0;
-        Appender appender;
+        Appender[] appenders = appenderArray;
+        int size = appenders.length;
+        //AppenderAttachableImplappender󼯺ϣݲͬ־ĿĵأвͬappenderãҪFileAppender ConsoleAppender
+        for (int i = 0; i < size; i++) {
+            //AppenderSkeletondoAppend
+            //Log4JʵֵAppender̳AppenderSkeleton࣬Appenderӿṩʵ֣
+            appenders[i].doAppend(event);
+        }
+        return size;
+    }
 
-        if (appenderList != null) {
-            size = appenderList.size();
-            //AppenderAttachableImplappender󼯺ϣݲͬ־ĿĵأвͬappenderãҪFileAppender ConsoleAppender
-            for (int i = 0; i < size; i++) {
-                //ȡÿһappender
-                appender = (Appender) appenderList.elementAt(i);
-                //AppenderSkeletondoAppend
-                //Log4JʵֵAppender̳AppenderSkeleton࣬Appenderӿṩʵ֣
-                appender.doAppend(event);
+    /**
+     * Call the attached appenders on the first <code>count</code>
+     * elements of <code>events</code>. Appenders implementing {@link
+     * BatchAppender} receive the whole batch in one call, the others
+     * receive the events one by one.
+     *
+     * @return the number of attached appenders.
+     * @since 1.2.18
+     */
+    public int appendLoopOnAppenders(LoggingEvent[] events, int count) {
+        Appender[] appenders = appenderArray;
+        int size = appenders.length;
+        for (int i = 0; i < size; i++) {
+            Appender appender = appenders[i];
+            if (appender instanceof BatchAppender) {
+                ((BatchAppender) appender).doAppend(events, count);
+            } else {
+                for (int j = 0; j < count; j++) {
+                    appender.doAppend(events[j]);
+                }
             }
         }
         return size;
     }
 
+    /**
+     * Returns the current snapshot of attached appenders. The returned
+     * array must not be modified.
+     *
+     * @since 1.2.18
+     */
+    public Appender[] getAppenderArray() {
+        return appenderArray;
+    }
 
     /**
      * Get all attached appenders as an Enumeration. If there are no
@@ -83,10 +127,11 @@ public class AppenderAttachableImpl implements AppenderAttachable {
      * @return Enumeration An enumeration of attached appenders.
      */
     public Enumeration getAllAppenders() {
-        if (appenderList == null)
+        Appender[] appenders = appenderArray;
+        if (appenders.length == 0)
             return null;
         else
-            return appenderList.elements();
+            return new Vector(Arrays.asList(appenders)).elements();
     }
 
     /**
@@ -96,15 +141,13 @@ public class AppenderAttachableImpl implements AppenderAttachable {
      * otherwise.
      */
     public Appender getAppender(String name) {
-        if (appenderList == null || name == null)
+        if (name == null)
             return null;
 
-        int size = appenderList.size();
-        Appender appender;
-        for (int i = 0; i < size; i++) {
-            appender = (Appender) appenderList.elementAt(i);
-            if (name.equals(appender.getName()))
-                return appender;
+        Appender[] appenders = appenderArray;
+        for (int i = 0; i < appenders.length; i++) {
+            if (name.equals(appenders[i].getName()))
+                return appenders[i];
         }
         return null;
     }
@@ -117,14 +160,12 @@ public class AppenderAttachableImpl implements AppenderAttachable {
      * @since 1.2
      */
     public boolean isAttached(Appender appender) {
-        if (appenderList == null || appender == null)
+        if (appender == null)
             return false;
 
-        int size = appenderList.size();
-        Appender a;
-        for (int i = 0; i < size; i++) {
-            a = (Appender) appenderList.elementAt(i);
-            if (a == appender)
+        Appender[] appenders = appenderArray;
+        for (int i = 0; i < appenders.length; i++) {
+            if (appenders[i] == appender)
                 return true;
         }
         return false;
@@ -134,7 +175,7 @@ public class AppenderAttachableImpl implements AppenderAttachable {
     /**
      * Remove and close all previously attached appenders.
      */
-    public void removeAllAppenders() {
+    public synchronized void removeAllAppenders() {
         if (appenderList != null) {
             int len = appenderList.size();
             for (int i = 0; i < len; i++) {
@@ -143,6 +184,7 @@ public class AppenderAttachableImpl implements AppenderAttachable {
             }
             appenderList.removeAllElements();
             appenderList = null;
+            appenderArray = EMPTY;
         }
     }
 
@@ -151,10 +193,11 @@ public class AppenderAttachableImpl implements AppenderAttachable {
      * Remove the appender passed as parameter form the list of attached
      * appenders.
      */
-    public void removeAppender(Appender appender) {
+    public synchronized void removeAppender(Appender appender) {
         if (appender == null || appenderList == null)
             return;
-        appenderList.removeElement(appender);
+        if (appenderList.removeElement(appender))
+            publish();
     }
 
 
@@ -162,15 +205,27 @@ public class AppenderAttachableImpl implements AppenderAttachable {
      * Remove the appender with the name passed as parameter form the
      * list of appenders.
      */
-    public void removeAppender(String name) {
+    public synchronized void removeAppender(String name) {
         if (name == null || appenderList == null) return;
         int size = appenderList.size();
         for (int i = 0; i < size; i++) {
             if (name.equals(((Appender) appenderList.elementAt(i)).getName())) {
                 appenderList.removeElementAt(i);
+                publish();
                 break;
             }
         }
     }
 
+    /**
+     * Replaces the snapshot read by {@link #appendLoopOnAppenders} with
+     * a copy of <code>appenderList</code>. Must be called with the lock
+     * on this object held.
+     */
+    private void publish() {
+        Appender[] appenders = new Appender[appenderList.size()];
+        appenderList.copyInto(appenders);
+        appenderArray = appenders;
+    }
+
 }
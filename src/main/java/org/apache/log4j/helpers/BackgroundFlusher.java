@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.log4j.helpers;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+   Flushes buffered appenders periodically from a single background
+   thread, which bounds the time written events may stay in a buffer.
+
+   <p>The daemon thread is started when the first appender is
+   scheduled. Targets must synchronize their <code>flush</code> method
+   with their writes.
+
+   @since 1.2.18
+*/
+public final class BackgroundFlusher {
+
+  private static ScheduledThreadPoolExecutor executor;
+
+  private BackgroundFlusher() {
+  }
+
+  /**
+     Flushes <code>target</code> every <code>intervalMillis</code>
+     milliseconds until the returned task is {@link #cancel
+     cancelled}.
+   */
+  public static synchronized Future schedule(final Flushable target,
+                                             final long intervalMillis) {
+    if (executor == null) {
+      executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+          public Thread newThread(final Runnable r) {
+            Thread thread = new Thread(r, "log4j flusher");
+            thread.setDaemon(true);
+            return thread;
+          }
+        });
+      executor.setRemoveOnCancelPolicy(true);
+    }
+    return executor.scheduleWithFixedDelay(new Runnable() {
+        public void run() {
+          try {
+            target.flush();
+          } catch (IOException e) {
+            LogLog.warn("Background flush failed.", e);
+          } catch (RuntimeException e) {
+            // a failure must not stop the periodic flushes
+            LogLog.warn("Background flush failed.", e);
+          }
+        }
+      }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+     Stops the periodic flushes of a task returned by {@link #schedule},
+     which may be <code>null</code>.
+   */
+  public static void cancel(final Future task) {
+    if (task != null) {
+      task.cancel(false);
+    }
+  }
+}
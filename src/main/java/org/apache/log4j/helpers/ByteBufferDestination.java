@@ -0,0 +1,43 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.log4j.helpers;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+   Target of a {@link StringBuilderEncoder}: supplies the buffer to
+   encode into and takes it back when it is full.
+
+   @since 1.2.18
+*/
+public interface ByteBufferDestination {
+
+  /**
+     Returns the buffer to write into. It is in write mode, that is its
+     position marks the end of the pending bytes.
+   */
+  ByteBuffer getByteBuffer();
+
+  /**
+     Writes out the pending bytes of <code>buf</code>, which is full,
+     and returns an empty buffer, possibly the same one, to continue
+     with.
+   */
+  ByteBuffer drain(ByteBuffer buf) throws IOException;
+}
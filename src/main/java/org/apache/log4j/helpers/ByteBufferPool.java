@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.log4j.helpers;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+   A pool of byte buffers of one capacity.
+
+   <p>Allocating direct buffers is expensive and their memory is only
+   reclaimed by the garbage collector, so appenders which reopen their
+   file, such as rolling ones, take their buffers from a pool shared by
+   all appenders using the same capacity instead.
+
+   <p>This class is thread-safe.
+
+   @since 1.2.18
+*/
+public final class ByteBufferPool {
+
+  /** Number of idle buffers kept per pool. */
+  private static final int MAX_IDLE = 16;
+
+  private static final ConcurrentHashMap POOLS = new ConcurrentHashMap();
+
+  private final int capacity;
+  private final boolean direct;
+  private final ConcurrentLinkedQueue idle = new ConcurrentLinkedQueue();
+  private final AtomicInteger idleCount = new AtomicInteger();
+
+  private ByteBufferPool(int capacity, boolean direct) {
+    this.capacity = capacity;
+    this.direct = direct;
+  }
+
+  /**
+     Returns the shared pool of buffers of the given capacity, direct or
+     not.
+   */
+  public static ByteBufferPool getPool(int capacity, boolean direct) {
+    String key = (direct ? "D" : "H") + capacity;
+    ByteBufferPool pool = (ByteBufferPool) POOLS.get(key);
+    if (pool == null) {
+      ByteBufferPool created = new ByteBufferPool(capacity, direct);
+      pool = (ByteBufferPool) POOLS.putIfAbsent(key, created);
+      if (pool == null) {
+        pool = created;
+      }
+    }
+    return pool;
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  public boolean isDirect() {
+    return direct;
+  }
+
+  /**
+     Returns a cleared buffer, reused if one is idle.
+   */
+  public ByteBuffer acquire() {
+    ByteBuffer buf = (ByteBuffer) idle.poll();
+    if (buf == null) {
+      return direct ? ByteBuffer.allocateDirect(capacity)
+                    : ByteBuffer.allocate(capacity);
+    }
+    idleCount.decrementAndGet();
+    buf.clear();
+    return buf;
+  }
+
+  /**
+     Returns <code>buf</code>, which the caller must no longer use, to
+     the pool. Buffers beyond the number kept idle are dropped.
+   */
+  public void release(ByteBuffer buf) {
+    if (buf == null || buf.capacity() != capacity
+        || buf.isDirect() != direct) {
+      return;
+    }
+    if (idleCount.incrementAndGet() <= MAX_IDLE) {
+      idle.offer(buf);
+    } else {
+      idleCount.decrementAndGet();
+    }
+  }
+}
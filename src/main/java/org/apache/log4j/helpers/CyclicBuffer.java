@@ -18,6 +18,7 @@
 package org.apache.log4j.helpers;
 
 import org.apache.log4j.spi.LoggingEvent;
+import org.apache.log4j.spi.ReusableLoggingEvent;
 
 /**
 
@@ -60,11 +61,12 @@ public class CyclicBuffer {
     
   /**
      Add an <code>event</code> as the last event in the buffer.
+     A {@link ReusableLoggingEvent} is copied first.
 
    */
   public
   void add(LoggingEvent event) {    
-    ea[last] = event;    
+    ea[last] = ReusableLoggingEvent.toImmutable(event);    
     if(++last == maxSize)
       last = 0;
 
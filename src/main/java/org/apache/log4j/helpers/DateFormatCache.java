@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.log4j.helpers;
+
+import java.text.DateFormat;
+import java.util.Date;
+
+import org.apache.log4j.pattern.CachedDateFormat;
+
+/**
+   Caches the formatting of a {@link DateFormat} for use by many
+   threads without synchronization.
+
+   <p>Like {@link CachedDateFormat}, the cache holds the last date
+   formatted and reuses it for any time within the same second, only
+   patching the milliseconds. Here the cached text, the second it
+   belongs to and the position of the milliseconds are published
+   together as one immutable entry, so that a thread sees either the
+   previous entry or the new one but never a mix of both. The wrapped
+   format is only used when the second changes, through a clone owned
+   by the calling thread, except for {@link AbsoluteTimeDateFormat},
+   {@link InstantDateFormat} and their subclasses which are safe to
+   share.
+
+   @since 1.2.18
+ */
+public final class DateFormatCache {
+
+  private static final String DIGITS = "0123456789";
+
+  /**
+     Formatted date, never modified once published.
+   */
+  private static final class Entry {
+    final long time;
+    final long slotBegin;
+    final int millisecondStart;
+    final String text;
+
+    Entry(long time, long slotBegin, int millisecondStart, String text) {
+      this.time = time;
+      this.slotBegin = slotBegin;
+      this.millisecondStart = millisecondStart;
+      this.text = text;
+    }
+  }
+
+  private final DateFormat prototype;
+  private final boolean shared;
+  private final int expiration;
+  private final ThreadLocal formats = new ThreadLocal();
+  private volatile Entry entry;
+
+  /**
+     Creates a cache for <code>format</code>, which is cloned for each
+     thread and should not be modified afterwards.
+
+     @param format date format, may not be null.
+     @param expiration maximum cached range in milliseconds, as for
+       {@link CachedDateFormat#CachedDateFormat}.
+   */
+  public DateFormatCache(final DateFormat format, final int expiration) {
+    if (format == null) {
+      throw new IllegalArgumentException("format cannot be null");
+    }
+    if (expiration < 0) {
+      throw new IllegalArgumentException("expiration must be non-negative");
+    }
+    this.prototype = format;
+    this.shared = format instanceof AbsoluteTimeDateFormat
+      || format instanceof InstantDateFormat;
+    this.expiration = expiration;
+  }
+
+  /**
+     Formats <code>time</code>.
+   */
+  public String format(final long time) {
+    Entry e = lookup(time);
+    if (e.time == time || e.millisecondStart < 0) {
+      return e.text;
+    }
+    StringBuilder buf = new StringBuilder(e.text.length());
+    append(e, time, buf);
+    return buf.toString();
+  }
+
+  /**
+     Appends <code>time</code>, formatted, to <code>buf</code>.
+   */
+  public StringBuilder format(final long time, final StringBuilder buf) {
+    append(lookup(time), time, buf);
+    return buf;
+  }
+
+  /**
+     Appends <code>time</code>, formatted, to <code>buf</code>.
+   */
+  public StringBuffer format(final long time, final StringBuffer buf) {
+    Entry e = lookup(time);
+    if (e.time == time || e.millisecondStart < 0) {
+      buf.append(e.text);
+    } else {
+      int start = e.millisecondStart;
+      int millis = (int) (time - e.slotBegin);
+      buf.append(e.text, 0, start);
+      buf.append(DIGITS.charAt(millis / 100));
+      buf.append(DIGITS.charAt((millis / 10) % 10));
+      buf.append(DIGITS.charAt(millis % 10));
+      buf.append(e.text, start + 3, e.text.length());
+    }
+    return buf;
+  }
+
+  private static void append(final Entry e, final long time,
+                             final StringBuilder buf) {
+    if (e.time == time || e.millisecondStart < 0) {
+      buf.append(e.text);
+    } else {
+      int start = e.millisecondStart;
+      int millis = (int) (time - e.slotBegin);
+      buf.append(e.text, 0, start);
+      buf.append(DIGITS.charAt(millis / 100));
+      buf.append(DIGITS.charAt((millis / 10) % 10));
+      buf.append(DIGITS.charAt(millis % 10));
+      buf.append(e.text, start + 3, e.text.length());
+    }
+  }
+
+  /**
+     Returns an entry valid for <code>time</code>, formatting it if the
+     current entry is not.
+   */
+  private Entry lookup(final long time) {
+    Entry e = entry;
+    if (e != null) {
+      if (e.time == time) {
+        return e;
+      }
+      if (e.millisecondStart != CachedDateFormat.UNRECOGNIZED_MILLISECONDS
+          && time >= e.slotBegin
+          && time < e.slotBegin + expiration
+          && time < e.slotBegin + 1000L) {
+        return e;
+      }
+    }
+
+    DateFormat format = shared ? prototype : (DateFormat) formats.get();
+    if (format == null) {
+      format = (DateFormat) prototype.clone();
+      formats.set(format);
+    }
+    String text = format.format(new Date(time));
+    long slotBegin = (time / 1000) * 1000;
+    if (slotBegin > time) {
+      slotBegin -= 1000;
+    }
+    //
+    //    if the milliseconds field was found before,
+    //       then reevaluate in case it moved.
+    //
+    int millisecondStart;
+    if (e == null || e.millisecondStart >= 0) {
+      millisecondStart =
+        CachedDateFormat.findMillisecondStart(time, text, format);
+    } else {
+      millisecondStart = e.millisecondStart;
+    }
+    e = new Entry(time, slotBegin, millisecondStart, text);
+    entry = e;
+    return e;
+  }
+}
@@ -141,8 +141,12 @@ abstract public class DateLayout extends Layout {
 
   public
   void dateFormat(StringBuffer buf, LoggingEvent event) {
-    if(dateFormat != null) {
-      date.setTime(event.timeStamp);
+    if(dateFormat instanceof InstantDateFormat) {
+      ((InstantDateFormat) dateFormat).format(event.getTimeStamp(),
+                                              event.getNanoOfMillisecond(), buf);
+      buf.append(' ');
+    } else if(dateFormat != null) {
+      date.setTime(event.getTimeStamp());
       dateFormat.format(date, buf, this.pos);
       buf.append(' ');
     }
@@ -170,7 +174,8 @@ abstract public class DateLayout extends Layout {
      AbsoluteTimeDateFormat#ISO8601_DATE_FORMAT}. If the
      <code>dateFormatType</code> is not one of the above, then the
      argument is assumed to be a date pattern for {@link
-     SimpleDateFormat}.
+     SimpleDateFormat}, or for {@link InstantDateFormat} if it has
+     fractions of a millisecond such as "HH:mm:ss.SSSSSS".
   */
   public
   void setDateFormat(String dateFormatType, TimeZone timeZone) {
@@ -192,6 +197,8 @@ abstract public class DateLayout extends Layout {
     } else if(dateFormatType.equalsIgnoreCase(
                               AbsoluteTimeDateFormat.ISO8601_DATE_FORMAT)) {
       this.dateFormat =  new ISO8601DateFormat(timeZone);
+    } else if(InstantDateFormat.isSubMillisecond(dateFormatType)) {
+      this.dateFormat = new InstantDateFormat(dateFormatType, timeZone);
     } else {
       this.dateFormat = new SimpleDateFormat(dateFormatType);
       this.dateFormat.setTimeZone(timeZone);
@@ -48,6 +48,8 @@ public class DateTimeDateFormat extends AbsoluteTimeDateFormat {
     setCalendar(Calendar.getInstance(timeZone));
   }
 
+  private transient volatile Prefix datePrefix; // "dd MMM yyyy "
+
   /**
      Appends to <code>sbuf</code> the date in the format "dd MMM yyyy
      HH:mm:ss,SSS" for example, "06 Nov 1994 08:49:37,459".
@@ -58,23 +60,44 @@ public class DateTimeDateFormat extends AbsoluteTimeDateFormat {
   StringBuffer format(Date date, StringBuffer sbuf,
 		      FieldPosition fieldPosition) {
 
-    calendar.setTime(date);
+    long now = date.getTime();
+    int millis = (int)(now % 1000);
+
+    Prefix p = datePrefix;
+    if (p == null || (now - millis) != p.time) {
+      // at most once per second, as in AbsoluteTimeDateFormat
+      Calendar calendar = newCalendar(now);
+
+      int start = sbuf.length();
 
-    int day = calendar.get(Calendar.DAY_OF_MONTH);
-    if(day < 10)
-      sbuf.append('0');
-    sbuf.append(day);
-    sbuf.append(' ');
-    sbuf.append(shortMonths[calendar.get(Calendar.MONTH)]);
-    sbuf.append(' ');
+      int day = calendar.get(Calendar.DAY_OF_MONTH);
+      if(day < 10)
+	sbuf.append('0');
+      sbuf.append(day);
+      sbuf.append(' ');
+      sbuf.append(shortMonths[calendar.get(Calendar.MONTH)]);
+      sbuf.append(' ');
 
-    int year =  calendar.get(Calendar.YEAR);
-    sbuf.append(year);
-    sbuf.append(' ');
+      int year =  calendar.get(Calendar.YEAR);
+      sbuf.append(year);
+      sbuf.append(' ');
+
+      char[] chars = new char[sbuf.length() - start];
+      sbuf.getChars(start, sbuf.length(), chars, 0);
+      datePrefix = new Prefix(now - millis, chars);
+    }
+    else {
+      sbuf.append(p.chars);
+    }
 
     return super.format(date, sbuf, fieldPosition);
   }
 
+  void clearCache() {
+    super.clearCache();
+    datePrefix = null;
+  }
+
   /**
      This method does not do anything but return <code>null</code>.
    */
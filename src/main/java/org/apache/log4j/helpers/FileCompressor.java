@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.log4j.helpers;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.log4j.spi.CompressionCodec;
+
+/**
+   Compresses rolled log files with a {@link CompressionCodec}.
+
+   @since 1.2.18
+*/
+public final class FileCompressor {
+
+  /** Number of files which may wait for background compression. */
+  private static final int QUEUE_CAPACITY = 16;
+
+  private static RolloverExecutor executor;
+
+  private FileCompressor() {
+  }
+
+  /**
+     Returns the codec designated by a <b>Compression</b> option:
+     <code>null</code> for a <code>null</code> or empty value or
+     "none", the gzip codec for "gzip" or "gz", and otherwise an
+     instance of the named {@link CompressionCodec} class, or
+     <code>null</code> if it cannot be created.
+   */
+  public static CompressionCodec getCodec(String value) {
+    if (value == null) {
+      return null;
+    }
+    String name = value.trim();
+    if (name.length() == 0 || "none".equalsIgnoreCase(name)) {
+      return null;
+    }
+    if ("gzip".equalsIgnoreCase(name) || "gz".equalsIgnoreCase(name)) {
+      return new GzipCompressionCodec();
+    }
+    return (CompressionCodec) OptionConverter.instantiateByClassName(
+      name, CompressionCodec.class, null);
+  }
+
+  /**
+     Compresses <code>source</code> into <code>target</code> and
+     deletes <code>source</code>. If compression fails,
+     <code>target</code> is deleted, <code>source</code> is kept and
+     <code>false</code> is returned.
+   */
+  public static boolean compress(File source, File target,
+                                 CompressionCodec codec) {
+    LogLog.debug("Compressing " + source + " to " + target);
+    InputStream in = null;
+    OutputStream out = null;
+    try {
+      in = new FileInputStream(source);
+      out = codec.createOutputStream(new FileOutputStream(target));
+      byte[] buf = new byte[8192];
+      int n;
+      while ((n = in.read(buf)) != -1) {
+        out.write(buf, 0, n);
+      }
+      out.close();
+      out = null;
+    } catch (IOException e) {
+      LogLog.error("Could not compress " + source + " to " + target, e);
+      closeQuietly(out);
+      target.delete();
+      return false;
+    } finally {
+      closeQuietly(in);
+    }
+    if (!source.delete()) {
+      LogLog.warn("Could not delete " + source + " after compressing it.");
+    }
+    return true;
+  }
+
+  /**
+     Queues compression of <code>source</code> into the file of the same
+     name followed by the codec extension, and returns
+     <code>true</code>; or returns <code>false</code> without waiting
+     when too many files are already queued.
+   */
+  public static boolean compressInBackground(final File source,
+                                             final CompressionCodec codec) {
+    final File target = new File(source.getPath() + codec.getFileExtension());
+    return getExecutor().offer(new Runnable() {
+        public void run() {
+          // the file may have been deleted while waiting
+          if (source.exists()) {
+            compress(source, target, codec);
+          }
+        }
+      });
+  }
+
+  /**
+     Queues deletion of <code>file</code> and of its compressed form
+     behind the compressions already queued, so that a file is not
+     deleted while it is compressed, and returns <code>true</code>; or
+     returns <code>false</code> without waiting when too many files are
+     already queued.
+   */
+  public static boolean deleteInBackground(final File file,
+                                           final CompressionCodec codec) {
+    final File compressed = new File(file.getPath() + codec.getFileExtension());
+    return getExecutor().offer(new Runnable() {
+        public void run() {
+          LogLog.debug("Deleting file " + file);
+          file.delete();
+          compressed.delete();
+        }
+      });
+  }
+
+  private static synchronized RolloverExecutor getExecutor() {
+    if (executor == null) {
+      executor = new RolloverExecutor("log4j compression", QUEUE_CAPACITY);
+    }
+    return executor;
+  }
+
+  private static void closeQuietly(Closeable c) {
+    if (c != null) {
+      try {
+        c.close();
+      } catch (IOException e) {
+        // already failed or nothing left to do
+      }
+    }
+  }
+}
@@ -15,38 +15,26 @@
  * limitations under the License.
  */
 
-package org.apache.log4j;
+package org.apache.log4j.helpers;
 
-/**
-   CategoryKey is a wrapper for String that apparently accellerated
-   hash table lookup in early JVM's.
-   @author Ceki G&uuml;lc&uuml; 
-*/
-class CategoryKey {
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
 
-  String   name;  
-  int hashCache;
+import org.apache.log4j.spi.CompressionCodec;
 
-  CategoryKey(String name) {
-    this.name = name;
-    hashCache = name.hashCode();
-  }
+/**
+   Compresses files in the gzip format.
+
+   @since 1.2.18
+*/
+public class GzipCompressionCodec implements CompressionCodec {
 
-  final
-  public  
-  int hashCode() {
-    return hashCache;
+  public String getFileExtension() {
+    return ".gz";
   }
 
-  final
-  public
-  boolean equals(Object rArg) {
-    if(this == rArg)
-      return true;
-    
-    if(rArg != null && CategoryKey.class == rArg.getClass()) 
-      return  name.equals(((CategoryKey)rArg ).name);
-    else 
-      return false;
+  public OutputStream createOutputStream(OutputStream out) throws IOException {
+    return new GZIPOutputStream(out, 8192);
   }
 }
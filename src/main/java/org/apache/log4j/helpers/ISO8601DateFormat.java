@@ -51,8 +51,7 @@ public class ISO8601DateFormat extends AbsoluteTimeDateFormat {
     super(timeZone);
   }
 
-  static private long   lastTime;
-  static private char[] lastTimeString = new char[20];
+  private transient volatile Prefix isoPrefix; // "yyyy-MM-dd HH:mm:ss,"
 
   /**
      Appends a date in the format "YYYY-mm-dd HH:mm:ss,SSS"
@@ -67,12 +66,13 @@ public class ISO8601DateFormat extends AbsoluteTimeDateFormat {
     long now = date.getTime();
     int millis = (int)(now % 1000);
 
-    if ((now - millis) != lastTime || lastTimeString[0] == 0) {
+    Prefix p = isoPrefix;
+    if (p == null || (now - millis) != p.time) {
       // We reach this point at most once per second
       // across all threads instead of each time format()
       // is called. This saves considerable CPU time.
 
-      calendar.setTime(date);
+      Calendar calendar = newCalendar(now);
 
       int start = sbuf.length();
 
@@ -127,11 +127,12 @@ public class ISO8601DateFormat extends AbsoluteTimeDateFormat {
       sbuf.append(',');
 
       // store the time string for next time to avoid recomputation
-      sbuf.getChars(start, sbuf.length(), lastTimeString, 0);
-      lastTime = now - millis;
+      char[] chars = new char[sbuf.length() - start];
+      sbuf.getChars(start, sbuf.length(), chars, 0);
+      isoPrefix = new Prefix(now - millis, chars);
     }
     else {
-      sbuf.append(lastTimeString);
+      sbuf.append(p.chars);
     }
 
 
@@ -144,6 +145,11 @@ public class ISO8601DateFormat extends AbsoluteTimeDateFormat {
     return sbuf;
   }
 
+  void clearCache() {
+    super.clearCache();
+    isoPrefix = null;
+  }
+
   /**
     This method does not do anything but return <code>null</code>.
    */
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.log4j.helpers;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.StringTokenizer;
+
+import org.apache.log4j.spi.ParameterizedMessage;
+
+/**
+   Tells which message objects cannot change once logged, so that an
+   asynchronous appender may leave their rendering to its dispatcher
+   thread.
+
+   <p>Strings, boxed primitives and a few value classes of the JDK are
+   known to be immutable, further classes may be named. Classes match
+   exactly, a sub-class of an immutable class may well be
+   mutable. A {@link ParameterizedMessage} is immutable if all its
+   arguments are.
+
+   @since 1.2.18
+*/
+public final class ImmutableTypes {
+
+  private static final Class[] BUILT_IN = {
+    String.class, Boolean.class, Character.class, Byte.class,
+    Short.class, Integer.class, Long.class, Float.class, Double.class,
+    java.math.BigInteger.class, java.math.BigDecimal.class,
+    java.util.UUID.class, java.time.Instant.class,
+    java.time.LocalDate.class, java.time.LocalTime.class,
+    java.time.LocalDateTime.class, java.time.OffsetDateTime.class,
+    java.time.ZonedDateTime.class, java.time.Duration.class
+  };
+
+  private final Set classes = new HashSet();
+
+  /**
+     Creates an instance knowing the built-in immutable classes.
+   */
+  public ImmutableTypes() {
+    for (int i = 0; i < BUILT_IN.length; i++) {
+      classes.add(BUILT_IN[i]);
+    }
+  }
+
+  /**
+     Creates an instance knowing the built-in immutable classes and
+     the classes named in <code>classNames</code>, separated by
+     commas. Classes which cannot be loaded are reported and skipped.
+   */
+  public ImmutableTypes(final String classNames) {
+    this();
+    if (classNames != null) {
+      StringTokenizer tokens = new StringTokenizer(classNames, ", \t");
+      while (tokens.hasMoreTokens()) {
+        String name = tokens.nextToken();
+        try {
+          classes.add(Loader.loadClass(name));
+        } catch (ClassNotFoundException ex) {
+          LogLog.warn("Could not find immutable class [" + name + "].");
+        }
+      }
+    }
+  }
+
+  /**
+     Is <code>message</code> known not to change?
+   */
+  public boolean isImmutable(final Object message) {
+    if (message instanceof ParameterizedMessage) {
+      ParameterizedMessage parameterized = (ParameterizedMessage) message;
+      int count = parameterized.getArgumentCount();
+      for (int i = 0; i < count; i++) {
+        if (!isImmutableValue(parameterized.getArgument(i))) {
+          return false;
+        }
+      }
+      return true;
+    }
+    return isImmutableValue(message);
+  }
+
+  private boolean isImmutableValue(final Object value) {
+    return value == null || classes.contains(value.getClass());
+  }
+}
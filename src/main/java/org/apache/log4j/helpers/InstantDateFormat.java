@@ -0,0 +1,354 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.log4j.helpers;
+
+import java.text.DateFormat;
+import java.text.FieldPosition;
+import java.text.NumberFormat;
+import java.text.ParsePosition;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+   Formats dates with {@link DateTimeFormatter}, down to the
+   nanosecond.
+
+   <p>The pattern, in the syntax of {@link DateTimeFormatter}, is split
+   once around its fraction of second field ("S" to "SSSSSSSSS"). What
+   comes before and after the fraction is formatted once per second and
+   published as one immutable entry; the digits of the fraction are
+   written directly into the output. Instances can thus be shared by
+   threads without any locking, and formatting allocates nothing except
+   when the second changes.
+
+   <p>Patterns with several fraction fields or with the nano-of-second
+   ("n"), nano-of-day ("N") or milli-of-day ("A") fields are formatted
+   with {@link DateTimeFormatter} on every call.
+
+   <p>Unless a time zone is set, the default time zone is looked up
+   whenever the second changes.
+
+   @since 1.2.18
+ */
+public class InstantDateFormat extends DateFormat {
+  private static final long serialVersionUID = 2394640950458231657L;
+
+  private static final int[] POWERS_OF_TEN = {
+    1, 10, 100, 1000, 10000, 100000, 1000000, 10000000, 100000000
+  };
+
+  /**
+     Formatted second, never modified once published.
+   */
+  private static final class Entry {
+    final long second;
+    final String prefix;
+    final String suffix;
+
+    Entry(long second, String prefix, String suffix) {
+      this.second = second;
+      this.prefix = prefix;
+      this.suffix = suffix;
+    }
+  }
+
+  /**
+     Set once a format with digits below the millisecond is created,
+     from then on events read the clock with nanosecond precision.
+   */
+  private static volatile boolean subMillisecondInUse;
+
+  private final String pattern;
+
+  /**
+     Number of digits of the fraction, 0 if there is none, -1 if the
+     pattern cannot be cached.
+   */
+  private final int fractionDigits;
+
+  private transient DateTimeFormatter prefixFormatter;
+  private transient DateTimeFormatter suffixFormatter;
+  private transient DateTimeFormatter formatter;
+  private transient volatile ZoneId zone;
+  private transient volatile Entry entry;
+
+  /**
+     Creates a format for <code>pattern</code> in the default time
+     zone.
+
+     @throws IllegalArgumentException if the pattern is invalid.
+   */
+  public
+  InstantDateFormat(String pattern) {
+    this(pattern, null);
+  }
+
+  /**
+     Creates a format for <code>pattern</code> in
+     <code>timeZone</code>, or in the default time zone if
+     <code>null</code>.
+
+     @throws IllegalArgumentException if the pattern is invalid.
+   */
+  public
+  InstantDateFormat(String pattern, TimeZone timeZone) {
+    this.pattern = pattern;
+    Locale locale = Locale.getDefault();
+    formatter = DateTimeFormatter.ofPattern(pattern, locale);
+    if (isSubMillisecond(pattern)) {
+      subMillisecondInUse = true;
+    }
+
+    int start = -1;
+    int end = -1;
+    boolean cacheable = true;
+    boolean quoted = false;
+    for (int i = 0; i < pattern.length() && cacheable; i++) {
+      char c = pattern.charAt(i);
+      if (c == '\'') {
+        quoted = !quoted;
+      } else if (!quoted) {
+        if (c == 'S') {
+          if (start < 0) {
+            start = i;
+            end = i;
+            while (end < pattern.length() && pattern.charAt(end) == 'S') {
+              end++;
+            }
+            i = end - 1;
+          } else {
+            cacheable = false;
+          }
+        } else if (c == 'n' || c == 'N' || c == 'A') {
+          cacheable = false;
+        }
+      }
+    }
+    if (!cacheable || end - start > 9) {
+      fractionDigits = -1;
+    } else if (start < 0) {
+      fractionDigits = 0;
+      prefixFormatter = formatter;
+    } else {
+      fractionDigits = end - start;
+      if (start > 0) {
+        prefixFormatter = DateTimeFormatter.ofPattern(pattern.substring(0, start), locale);
+      }
+      if (end < pattern.length()) {
+        suffixFormatter = DateTimeFormatter.ofPattern(pattern.substring(end), locale);
+      }
+    }
+    setCalendar(Calendar.getInstance(timeZone == null ? TimeZone.getDefault() : timeZone));
+    setNumberFormat(NumberFormat.getIntegerInstance());
+    zone = timeZone == null ? null : timeZone.toZoneId();
+  }
+
+  /**
+     Returns the named pattern "ISO8601", "ABSOLUTE" or "DATE" of
+     {@link AbsoluteTimeDateFormat} in the syntax of this class, or
+     <code>pattern</code> itself if it is not one of them.
+   */
+  public static
+  String toPattern(String pattern) {
+    if (AbsoluteTimeDateFormat.ISO8601_DATE_FORMAT.equalsIgnoreCase(pattern)) {
+      return "yyyy-MM-dd HH:mm:ss,SSS";
+    }
+    if (AbsoluteTimeDateFormat.ABS_TIME_DATE_FORMAT.equalsIgnoreCase(pattern)) {
+      return "HH:mm:ss,SSS";
+    }
+    if (AbsoluteTimeDateFormat.DATE_AND_TIME_DATE_FORMAT.equalsIgnoreCase(pattern)) {
+      return "dd MMM yyyy HH:mm:ss,SSS";
+    }
+    return pattern;
+  }
+
+  /**
+     Has a format with digits below the millisecond been created? Until
+     then, events only read the millisecond clock.
+   */
+  public static
+  boolean isSubMillisecondInUse() {
+    return subMillisecondInUse;
+  }
+
+  /**
+     Does <code>pattern</code> format fractions of a millisecond, which
+     {@link java.text.SimpleDateFormat} cannot do?
+   */
+  public static
+  boolean isSubMillisecond(String pattern) {
+    boolean quoted = false;
+    int run = 0;
+    for (int i = 0; i < pattern.length(); i++) {
+      char c = pattern.charAt(i);
+      if (c == '\'') {
+        quoted = !quoted;
+        run = 0;
+      } else if (!quoted && c == 'S') {
+        if (++run > 3) {
+          return true;
+        }
+      } else {
+        run = 0;
+      }
+    }
+    return false;
+  }
+
+  /**
+     Returns the pattern of this format.
+   */
+  public
+  String toPattern() {
+    return pattern;
+  }
+
+  /**
+     Appends <code>time</code>, formatted, to <code>buf</code>.
+
+     @param time milliseconds since 1970-01-01 GMT.
+     @param nanoOfMillisecond nanoseconds within the millisecond,
+       0 to 999999.
+     @param buf the buffer to append to.
+   */
+  public
+  StringBuilder format(long time, int nanoOfMillisecond, StringBuilder buf) {
+    long second = floorDiv(time);
+    int nano = (int) (time - second * 1000) * 1000000 + nanoOfMillisecond;
+    if (fractionDigits < 0) {
+      formatter.withZone(getZone()).formatTo(Instant.ofEpochSecond(second, nano), buf);
+      return buf;
+    }
+    Entry e = getEntry(second);
+    buf.append(e.prefix);
+    if (fractionDigits > 0) {
+      int fraction = nano / POWERS_OF_TEN[9 - fractionDigits];
+      for (int i = fractionDigits - 1; i >= 0; i--) {
+        buf.append((char) ('0' + (fraction / POWERS_OF_TEN[i]) % 10));
+      }
+    }
+    buf.append(e.suffix);
+    return buf;
+  }
+
+  /**
+     Appends <code>time</code>, formatted, to <code>buf</code>, see
+     {@link #format(long, int, StringBuilder)}.
+   */
+  public
+  StringBuffer format(long time, int nanoOfMillisecond, StringBuffer buf) {
+    long second = floorDiv(time);
+    int nano = (int) (time - second * 1000) * 1000000 + nanoOfMillisecond;
+    if (fractionDigits < 0) {
+      formatter.withZone(getZone()).formatTo(Instant.ofEpochSecond(second, nano), buf);
+      return buf;
+    }
+    Entry e = getEntry(second);
+    buf.append(e.prefix);
+    if (fractionDigits > 0) {
+      int fraction = nano / POWERS_OF_TEN[9 - fractionDigits];
+      for (int i = fractionDigits - 1; i >= 0; i--) {
+        buf.append((char) ('0' + (fraction / POWERS_OF_TEN[i]) % 10));
+      }
+    }
+    buf.append(e.suffix);
+    return buf;
+  }
+
+  /**
+     Appends <code>date</code>, formatted, to <code>sbuf</code>.
+
+     @param date the date to format.
+     @param sbuf the string buffer to write to.
+     @param fieldPosition remains untouched.
+   */
+  public
+  StringBuffer format(Date date, StringBuffer sbuf, FieldPosition fieldPosition) {
+    return format(date.getTime(), 0, sbuf);
+  }
+
+  /**
+     This method does not do anything but return <code>null</code>.
+   */
+  public
+  Date parse(String s, ParsePosition pos) {
+    return null;
+  }
+
+  /**
+     Sets the time zone, <code>null</code> for the default time zone.
+   */
+  public
+  void setTimeZone(TimeZone timeZone) {
+    super.setTimeZone(timeZone == null ? TimeZone.getDefault() : timeZone);
+    zone = timeZone == null ? null : timeZone.toZoneId();
+    entry = null;
+  }
+
+  /**
+     Returns an entry for <code>second</code>, formatting it if the
+     current entry is for another second.
+   */
+  private
+  Entry getEntry(long second) {
+    Entry e = entry;
+    if (e != null && e.second == second) {
+      return e;
+    }
+    ZoneId z = getZone();
+    Instant instant = Instant.ofEpochSecond(second);
+    String prefix = prefixFormatter == null
+      ? "" : prefixFormatter.withZone(z).format(instant);
+    String suffix = suffixFormatter == null
+      ? "" : suffixFormatter.withZone(z).format(instant);
+    e = new Entry(second, prefix, suffix);
+    entry = e;
+    return e;
+  }
+
+  private
+  ZoneId getZone() {
+    ZoneId z = zone;
+    return z == null ? ZoneId.systemDefault() : z;
+  }
+
+  private static
+  long floorDiv(long time) {
+    long second = time / 1000;
+    if (second * 1000 > time) {
+      second--;
+    }
+    return second;
+  }
+
+  private
+  void readObject(java.io.ObjectInputStream in)
+                  throws java.io.IOException, ClassNotFoundException {
+    in.defaultReadObject();
+    InstantDateFormat copy = new InstantDateFormat(pattern, getTimeZone());
+    prefixFormatter = copy.prefixFormatter;
+    suffixFormatter = copy.suffixFormatter;
+    formatter = copy.formatter;
+    zone = copy.zone;
+  }
+}
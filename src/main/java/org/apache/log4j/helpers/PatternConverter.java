@@ -39,16 +39,65 @@ public abstract class PatternConverter {
   int max = 0x7FFFFFFF;
   boolean leftAlign = false;
 
+  /**
+     Set when a subclass overrides only the <code>StringBuffer</code>
+     variant of {@link #format(StringBuffer, LoggingEvent) format}, in
+     which case the <code>StringBuilder</code> variant calls it. */
+  private final boolean formatsStringBuffer;
+
+  /**
+     Set when a subclass overrides only the <code>StringBuilder</code>
+     variant of {@link #format(StringBuilder, LoggingEvent) format}, in
+     which case the <code>StringBuffer</code> variant calls it. */
+  private final boolean formatsStringBuilder;
+
+  /**
+     Set when a subclass overrides either <code>format</code> method. */
+  private final boolean customFormat;
+
   protected
-  PatternConverter() {  }
+  PatternConverter() {
+    Class bufferOwner = formatOwner(StringBuffer.class);
+    Class builderOwner = formatOwner(StringBuilder.class);
+    formatsStringBuffer = bufferOwner != builderOwner
+      && builderOwner.isAssignableFrom(bufferOwner);
+    formatsStringBuilder = bufferOwner != builderOwner
+      && bufferOwner.isAssignableFrom(builderOwner);
+    customFormat = bufferOwner != PatternConverter.class
+      || builderOwner != PatternConverter.class;
+  }
   
   protected
   PatternConverter(FormattingInfo fi) {
+    this();
     min = fi.min;
     max = fi.max;
     leftAlign = fi.leftAlign;
   }
 
+  /**
+     Returns the most derived class declaring the <code>format</code>
+     method for the given buffer type.
+  */
+  private
+  Class formatOwner(Class bufferType) {
+    try {
+      return getClass().getMethod("format",
+        new Class[] { bufferType, LoggingEvent.class }).getDeclaringClass();
+    } catch(NoSuchMethodException e) {
+      return PatternConverter.class;
+    }
+  }
+
+  /**
+     Returns <code>true</code> if formatting amounts to appending the
+     result of {@link #convert}, that is no padding or truncation
+     applies and <code>format</code> is not overridden.
+  */
+  boolean formatsByConvert() {
+    return !customFormat && min <= 0 && max == 0x7FFFFFFF;
+  }
+
   /**
      Derived pattern converters must override this method in order to
      convert conversion specifiers in the correct way.
@@ -62,6 +111,13 @@ public abstract class PatternConverter {
    */
   public
   void format(StringBuffer sbuf, LoggingEvent e) {
+    if(formatsStringBuilder) {
+      StringBuilder buf = new StringBuilder();
+      format(buf, e);
+      sbuf.append(buf);
+      return;
+    }
+
     String s = convert(e);
 
     if(s == null) {
@@ -88,6 +144,49 @@ public abstract class PatternConverter {
       sbuf.append(s);
   }	
 
+  /**
+     A template method for formatting in a converter specific way
+     into an unsynchronized buffer. {@link org.apache.log4j.PatternLayout} calls this
+     method; converters overriding only {@link
+     #format(StringBuffer, LoggingEvent)} are still honored.
+
+     @since 1.2.18
+   */
+  public
+  void format(StringBuilder sbuf, LoggingEvent e) {
+    if(formatsStringBuffer) {
+      StringBuffer buf = new StringBuffer();
+      format(buf, e);
+      sbuf.append(buf);
+      return;
+    }
+
+    String s = convert(e);
+
+    if(s == null) {
+      if(0 < min)
+	spacePad(sbuf, min);
+      return;
+    }
+
+    int len = s.length();
+
+    if(len > max)
+      sbuf.append(s, len-max, len);
+    else if(len < min) {
+      if(leftAlign) {	
+	sbuf.append(s);
+	spacePad(sbuf, min-len);
+      }
+      else {
+	spacePad(sbuf, min-len);
+	sbuf.append(s);
+      }
+    }
+    else
+      sbuf.append(s);
+  }	
+
   static String[] SPACES = {" ", "  ", "    ", "        ", //1,2,4,8 spaces
 			    "                ", // 16 spaces
 			    "                                " }; // 32 spaces
@@ -108,4 +207,23 @@ public abstract class PatternConverter {
       }
     }
   }
+
+  /**
+     Fast space padding method.
+
+     @since 1.2.18
+  */
+  public
+  void spacePad(StringBuilder sbuf, int length) {
+    while(length >= 32) {
+      sbuf.append(SPACES[5]);
+      length -= 32;
+    }
+    
+    for(int i = 4; i >= 0; i--) {	
+      if((length & (1<<i)) != 0) {
+	sbuf.append(SPACES[i]);
+      }
+    }
+  }
 }
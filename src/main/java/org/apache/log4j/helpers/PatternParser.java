@@ -17,11 +17,11 @@
 package org.apache.log4j.helpers;
 
 import org.apache.log4j.Layout;
+import org.apache.log4j.pattern.CachedDateFormat;
 import org.apache.log4j.spi.LoggingEvent;
 import org.apache.log4j.spi.LocationInfo;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
-import java.util.Date;
 import java.util.Map;
 import java.util.Arrays;
 
@@ -262,7 +262,10 @@ public class PatternParser {
 	df = new DateTimeDateFormat();
       else {
 	try {
-	  df = new SimpleDateFormat(dateFormatStr);
+	  if (InstantDateFormat.isSubMillisecond(dateFormatStr))
+	    df = new InstantDateFormat(dateFormatStr);
+	  else
+	    df = new SimpleDateFormat(dateFormatStr);
 	}
 	catch (IllegalArgumentException e) {
 	  LogLog.error("Could not instantiate SimpleDateFormat with " +
@@ -379,7 +382,7 @@ public class PatternParser {
   //                      PatternConverters
   // ---------------------------------------------------------------------
 
-  private static class BasicPatternConverter extends PatternConverter {
+  static class BasicPatternConverter extends PatternConverter {
     int type;
 
     BasicPatternConverter(FormattingInfo formattingInfo, int type) {
@@ -391,7 +394,7 @@ public class PatternParser {
     String convert(LoggingEvent event) {
       switch(type) {
       case RELATIVE_TIME_CONVERTER:
-	return (Long.toString(event.timeStamp - LoggingEvent.getStartTime()));
+	return (Long.toString(event.getTimeStamp() - LoggingEvent.getStartTime()));
       case THREAD_CONVERTER:
 	return event.getThreadName();
       case LEVEL_CONVERTER:
@@ -406,8 +409,8 @@ public class PatternParser {
     }
   }
 
-  private static class LiteralPatternConverter extends PatternConverter {
-    private String literal;
+  static class LiteralPatternConverter extends PatternConverter {
+    final String literal;
 
     LiteralPatternConverter(String value) {
       literal = value;
@@ -419,6 +422,12 @@ public class PatternParser {
       sbuf.append(literal);
     }
 
+    public
+    final
+    void format(StringBuilder sbuf, LoggingEvent event) {
+      sbuf.append(literal);
+    }
+
     public
     String convert(LoggingEvent event) {
       return literal;
@@ -426,27 +435,60 @@ public class PatternParser {
   }
 
   private static class DatePatternConverter extends PatternConverter {
-    private DateFormat df;
-    private Date date;
+    private DateFormatCache df;
+    private InstantDateFormat instantFormat;
 
     DatePatternConverter(FormattingInfo formattingInfo, DateFormat df) {
       super(formattingInfo);
-      date = new Date();
-      this.df = df;
+      if (df instanceof InstantDateFormat) {
+        instantFormat = (InstantDateFormat) df;
+        return;
+      }
+      int expiration = 1000;
+      if (df instanceof SimpleDateFormat) {
+        expiration = CachedDateFormat.getMaximumCacheValidity(
+                       ((SimpleDateFormat) df).toPattern());
+      }
+      this.df = new DateFormatCache(df, expiration);
     }
 
     public
     String convert(LoggingEvent event) {
-      date.setTime(event.timeStamp);
       String converted = null;
       try {
-        converted = df.format(date);
+        if (instantFormat != null) {
+          converted = instantFormat.format(event.getTimeStamp(),
+            event.getNanoOfMillisecond(), new StringBuilder(32)).toString();
+        } else {
+          converted = df.format(event.getTimeStamp());
+        }
       }
       catch (Exception ex) {
         LogLog.error("Error occured while converting date.", ex);
       }
       return converted;
     }
+
+    /**
+       Formats straight into <code>sbuf</code> when no padding or
+       truncation applies, saving the intermediate string.
+     */
+    public
+    void format(StringBuilder sbuf, LoggingEvent event) {
+      if (instantFormat == null || min > 0 || max != 0x7FFFFFFF) {
+        super.format(sbuf, event);
+        return;
+      }
+      int start = sbuf.length();
+      try {
+        instantFormat.format(event.getTimeStamp(),
+          event.getNanoOfMillisecond(), sbuf);
+      }
+      catch (Exception ex) {
+        sbuf.setLength(start);
+        LogLog.error("Error occured while converting date.", ex);
+      }
+    }
   }
 
   private static class MDCPatternConverter extends PatternConverter {
@@ -460,7 +502,7 @@ public class PatternParser {
     public
     String convert(LoggingEvent event) {
       if (key == null) {
-          StringBuffer buf = new StringBuffer("{");
+          StringBuilder buf = new StringBuilder("{");
           Map properties = event.getProperties();
           if (properties.size() > 0) {
             Object[] keys = properties.keySet().toArray();
@@ -500,7 +542,7 @@ public class PatternParser {
       LocationInfo locationInfo = event.getLocationInformation();
       switch(type) {
       case FULL_LOCATION_CONVERTER:
-	return locationInfo.fullInfo;
+	return locationInfo.getFullInfo();
       case METHOD_LOCATION_CONVERTER:
 	return locationInfo.getMethodName();
       case LINE_LOCATION_CONVERTER:
@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.log4j.helpers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.log4j.spi.LoggingEvent;
+
+/**
+   A conversion pattern compiled from a chain of {@link
+   PatternConverter PatternConverters} into a flat array of
+   operations.
+
+   <p>Adjacent literals are fused into one. Converters to which no
+   padding or truncation applies do not go through the {@link
+   PatternConverter#format(StringBuilder, LoggingEvent) format}
+   template: the message, level, thread, NDC and relative time
+   converters of {@link PatternParser} are replaced by inline
+   operations and the others are reduced to appending their {@link
+   PatternConverter#convert converted} value. Only the remaining
+   converters are called as in the chain.
+
+   <p>Instances are immutable and may be shared by threads, provided
+   the compiled converters are.
+
+   @since 1.2.18
+*/
+public final class PatternPlan {
+
+  private static final int LITERAL = 0;
+  private static final int MESSAGE = 1;
+  private static final int LEVEL = 2;
+  private static final int THREAD = 3;
+  private static final int NDC = 4;
+  private static final int RELATIVE_TIME = 5;
+  private static final int CONVERT = 6;
+  private static final int FORMAT = 7;
+
+  private final int[] ops;
+  private final String[] literals;
+  private final PatternConverter[] converters;
+
+  private PatternPlan(int[] ops, String[] literals,
+                      PatternConverter[] converters) {
+    this.ops = ops;
+    this.literals = literals;
+    this.converters = converters;
+  }
+
+  /**
+     Compiles the converter chain starting at <code>head</code>, which
+     may be <code>null</code> for an empty pattern.
+  */
+  public static PatternPlan compile(PatternConverter head) {
+    List opList = new ArrayList();
+    List literalList = new ArrayList();
+    List converterList = new ArrayList();
+    StringBuilder literal = null;
+
+    for(PatternConverter c = head; c != null; c = c.next) {
+      if(c.getClass() == PatternParser.LiteralPatternConverter.class) {
+        if(literal == null) {
+          literal = new StringBuilder();
+        }
+        literal.append(((PatternParser.LiteralPatternConverter) c).literal);
+        continue;
+      }
+      if(literal != null) {
+        add(opList, literalList, converterList, LITERAL, literal.toString(), null);
+        literal = null;
+      }
+      add(opList, literalList, converterList, opOf(c), null, c);
+    }
+    if(literal != null) {
+      add(opList, literalList, converterList, LITERAL, literal.toString(), null);
+    }
+
+    int size = opList.size();
+    int[] ops = new int[size];
+    for(int i = 0; i < size; i++) {
+      ops[i] = ((Integer) opList.get(i)).intValue();
+    }
+    return new PatternPlan(ops,
+      (String[]) literalList.toArray(new String[size]),
+      (PatternConverter[]) converterList.toArray(new PatternConverter[size]));
+  }
+
+  private static void add(List ops, List literals, List converters,
+                          int op, String literal, PatternConverter c) {
+    ops.add(Integer.valueOf(op));
+    literals.add(literal);
+    converters.add(c);
+  }
+
+  private static int opOf(PatternConverter c) {
+    if(!c.formatsByConvert()) {
+      return FORMAT;
+    }
+    if(c.getClass() == PatternParser.BasicPatternConverter.class) {
+      switch(((PatternParser.BasicPatternConverter) c).type) {
+      case PatternParser.MESSAGE_CONVERTER: return MESSAGE;
+      case PatternParser.LEVEL_CONVERTER: return LEVEL;
+      case PatternParser.THREAD_CONVERTER: return THREAD;
+      case PatternParser.NDC_CONVERTER: return NDC;
+      case PatternParser.RELATIVE_TIME_CONVERTER: return RELATIVE_TIME;
+      default: break;
+      }
+    }
+    return CONVERT;
+  }
+
+  /**
+     Appends <code>event</code> formatted according to the plan to
+     <code>output</code>.
+  */
+  public void format(StringBuilder output, LoggingEvent event) {
+    final int[] ops = this.ops;
+    String s;
+    for(int i = 0; i < ops.length; i++) {
+      switch(ops[i]) {
+      case LITERAL:
+        output.append(literals[i]);
+        continue;
+      case MESSAGE:
+        s = event.getRenderedMessage();
+        break;
+      case LEVEL:
+        s = event.getLevel().toString();
+        break;
+      case THREAD:
+        s = event.getThreadName();
+        break;
+      case NDC:
+        s = event.getNDC();
+        break;
+      case RELATIVE_TIME:
+        output.append(event.getTimeStamp() - LoggingEvent.getStartTime());
+        continue;
+      case CONVERT:
+        s = converters[i].convert(event);
+        break;
+      default:
+        converters[i].format(output, event);
+        continue;
+      }
+      if(s != null) {
+        output.append(s);
+      }
+    }
+  }
+}
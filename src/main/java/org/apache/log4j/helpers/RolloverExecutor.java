@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.log4j.helpers;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+   Runs the file maintenance of rolling appenders, such as renaming
+   and compressing rolled files, on a background thread so that the
+   logging threads do not wait for it.
+
+   <p>Actions run one at a time in submission order on a low priority
+   daemon thread, which is started with the first action. The queue is
+   bounded and {@link #offer} never runs an action on the calling
+   thread, so callers holding a lock decide how to degrade when the
+   queue is full.
+
+   @since 1.2.18
+*/
+public class RolloverExecutor {
+
+  private final ThreadPoolExecutor executor;
+
+  /**
+     Creates an executor whose thread is named <code>name</code> and
+     which queues up to <code>capacity</code> actions.
+  */
+  public RolloverExecutor(final String name, final int capacity) {
+    executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+      new LinkedBlockingQueue(capacity), new ThreadFactory() {
+        public Thread newThread(final Runnable r) {
+          Thread thread = new Thread(r, name);
+          thread.setDaemon(true);
+          thread.setPriority(Thread.MIN_PRIORITY);
+          return thread;
+        }
+      });
+  }
+
+  /**
+     Queues <code>action</code> and returns <code>true</code>, or
+     returns <code>false</code> without running it if the queue is full
+     or the executor shut down.
+  */
+  public boolean offer(final Runnable action) {
+    try {
+      executor.execute(new Guarded(action));
+      return true;
+    } catch (RejectedExecutionException e) {
+      return false;
+    }
+  }
+
+  /**
+     Returns <code>true</code> if an action offered now would be
+     queued, that is the queue is not full and the executor not shut
+     down.
+  */
+  public boolean hasCapacity() {
+    return !executor.isShutdown()
+      && executor.getQueue().remainingCapacity() > 0;
+  }
+
+  /**
+     Stops accepting actions and waits up to <code>timeoutMillis</code>
+     for the queued ones to complete.
+  */
+  public void shutdown(final long timeoutMillis) {
+    executor.shutdown();
+    try {
+      if (!executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+        LogLog.warn("Background file actions still pending after "
+                    + timeoutMillis + "ms.");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+     Keeps a failing action from going unnoticed.
+  */
+  private static final class Guarded implements Runnable {
+    private final Runnable action;
+
+    Guarded(final Runnable action) {
+      this.action = action;
+    }
+
+    public void run() {
+      try {
+        action.run();
+      } catch (RuntimeException e) {
+        LogLog.error("Background file action failed.", e);
+      }
+    }
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.log4j.helpers;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+   Encodes the content of a <code>StringBuilder</code> straight into
+   the buffer of a {@link ByteBufferDestination}, without creating an
+   intermediate <code>String</code> or byte array.
+
+   <p>Characters are copied in chunks into a char array owned by the
+   encoder, so no object is allocated per call. Malformed and
+   unmappable characters are replaced.
+
+   <p>Instances are not thread-safe.
+
+   @since 1.2.18
+*/
+public class StringBuilderEncoder {
+
+  private static final int DEFAULT_CHUNK_SIZE = 1024;
+
+  private final CharsetEncoder encoder;
+  private final char[] chars;
+  private final CharBuffer charBuffer;
+
+  public StringBuilderEncoder(Charset charset) {
+    this(charset, DEFAULT_CHUNK_SIZE);
+  }
+
+  public StringBuilderEncoder(Charset charset, int chunkSize) {
+    encoder = charset.newEncoder()
+      .onMalformedInput(CodingErrorAction.REPLACE)
+      .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    // two characters at least so that a surrogate pair always fits
+    chars = new char[Math.max(2, chunkSize)];
+    charBuffer = CharBuffer.wrap(chars);
+  }
+
+  /**
+     Returns the charset for the given encoding name, or the platform
+     default charset if the name is <code>null</code> or not supported.
+   */
+  public static Charset toCharset(String encoding) {
+    if (encoding != null) {
+      try {
+        return Charset.forName(encoding);
+      } catch (IllegalArgumentException e) {
+        LogLog.warn("Unsupported encoding [" + encoding
+                    + "], using the default one.", e);
+      }
+    }
+    return Charset.defaultCharset();
+  }
+
+  /**
+     Encodes the whole content of <code>text</code> into
+     <code>destination</code>.
+   */
+  public void encode(StringBuilder text, ByteBufferDestination destination)
+    throws IOException {
+    encoder.reset();
+    ByteBuffer buf = destination.getByteBuffer();
+    int start = 0;
+    int length = text.length();
+    while (start < length) {
+      int count = Math.min(length - start, chars.length);
+      text.getChars(start, start + count, chars, 0);
+      charBuffer.clear();
+      charBuffer.limit(count);
+      boolean endOfInput = start + count == length;
+      buf = encodeChunk(charBuffer, buf, endOfInput, destination);
+      // a trailing high surrogate is left over for the next chunk
+      start += count - charBuffer.remaining();
+    }
+    if (length == 0) {
+      charBuffer.clear();
+      charBuffer.limit(0);
+      buf = encodeChunk(charBuffer, buf, true, destination);
+    }
+    while (encoder.flush(buf).isOverflow()) {
+      buf = destination.drain(buf);
+    }
+  }
+
+  private ByteBuffer encodeChunk(CharBuffer in, ByteBuffer buf,
+                                 boolean endOfInput,
+                                 ByteBufferDestination destination)
+    throws IOException {
+    while (true) {
+      CoderResult result = encoder.encode(in, buf, endOfInput);
+      if (result.isOverflow()) {
+        buf = destination.drain(buf);
+      } else if (result.isUnderflow()) {
+        return buf;
+      } else {
+        // cannot happen with REPLACE, but do not loop forever
+        result.throwException();
+      }
+    }
+  }
+}
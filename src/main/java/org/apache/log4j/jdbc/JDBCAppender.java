@@ -22,10 +22,13 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 
 import org.apache.log4j.PatternLayout;
+import org.apache.log4j.spi.BatchAppender;
 import org.apache.log4j.spi.ErrorCode;
 import org.apache.log4j.spi.LoggingEvent;
+import org.apache.log4j.spi.ReusableLoggingEvent;
 
 
 /**
@@ -76,7 +79,7 @@ import org.apache.log4j.spi.LoggingEvent;
 
 */
 public class JDBCAppender extends org.apache.log4j.AppenderSkeleton
-    implements org.apache.log4j.Appender {
+    implements org.apache.log4j.Appender, BatchAppender {
 
   /**
    * URL of the DB for default connection handling
@@ -131,10 +134,29 @@ public class JDBCAppender extends org.apache.log4j.AppenderSkeleton
   
   private boolean locationInfo = false;
 
+  /**
+   * Whether a sub-class overrides {@link #execute}, in which case batches
+   * are flushed one statement at a time through it.
+   */
+  private final boolean executeOverridden;
+
   public JDBCAppender() {
     super();
     buffer = new ArrayList(bufferSize);
     removes = new ArrayList(bufferSize);
+    executeOverridden = overridesExecute(getClass());
+  }
+
+  private static boolean overridesExecute(Class clazz) {
+    for (Class c = clazz; c != JDBCAppender.class; c = c.getSuperclass()) {
+      try {
+        c.getDeclaredMethod("execute", new Class[] { String.class });
+        return true;
+      } catch (NoSuchMethodException e) {
+        // look further up
+      }
+    }
+    return false;
   }
 
   /**
@@ -171,6 +193,62 @@ public class JDBCAppender extends org.apache.log4j.AppenderSkeleton
    * Adds the event to the buffer.  When full the buffer is flushed.
    */
   public void append(LoggingEvent event) {
+    bufferEvent(event);
+
+    if (buffer.size() >= bufferSize)
+      flushBuffer();
+  }
+
+  /**
+   * Adds all accepted events of the batch to the buffer, then, if it is
+   * full, writes the buffer with a single batched statement on one
+   * connection and one commit, see {@link #executeBatch}. When a
+   * sub-class overrides {@link #execute}, {@link #flushBuffer} is used
+   * instead so that the override keeps seeing every statement.
+   *
+   * @since 1.2.18
+   */
+  public synchronized void doAppend(LoggingEvent[] events, int count) {
+    for (int i = 0; i < count; i++) {
+      if (isAppendable(events[i])) {
+        bufferEvent(events[i]);
+      }
+    }
+
+    if (buffer.size() >= bufferSize) {
+      if (executeOverridden) {
+        flushBuffer();
+      } else {
+        flushBufferBatched();
+      }
+    }
+  }
+
+  /**
+   * Writes the whole buffer through {@link #executeBatch}. The events
+   * are dropped from the buffer even if the batch fails, as
+   * {@link #flushBuffer} does.
+   */
+  private void flushBufferBatched() {
+    List statements = new ArrayList(buffer.size());
+    for (Iterator i = buffer.iterator(); i.hasNext();) {
+      statements.add(getLogStatement((LoggingEvent) i.next()));
+    }
+    buffer.clear();
+    try {
+      executeBatch(statements);
+    } catch (SQLException e) {
+      errorHandler.error("Failed to excute sql batch", e,
+                         ErrorCode.FLUSH_FAILURE);
+    }
+  }
+
+  /**
+   * Fixes the thread dependent fields of the event and adds it to
+   * the buffer.
+   */
+  private void bufferEvent(LoggingEvent event) {
+    event = ReusableLoggingEvent.toImmutable(event);
     event.getNDC();
     event.getThreadName();
     // Get a copy of this thread's MDC.
@@ -181,9 +259,6 @@ public class JDBCAppender extends org.apache.log4j.AppenderSkeleton
     event.getRenderedMessage();
     event.getThrowableStrRep();
     buffer.add(event);
-
-    if (buffer.size() >= bufferSize)
-      flushBuffer();
   }
 
   /**
@@ -226,6 +301,58 @@ public class JDBCAppender extends org.apache.log4j.AppenderSkeleton
     //System.out.println("Execute: " + sql);
   }
 
+  /**
+   * Executes the statements as one JDBC batch on a single connection
+   * and commits them once. If the driver does not support batch updates
+   * the statements are executed one by one, still within the single
+   * transaction. On failure the transaction is rolled back.
+   *
+   * @since 1.2.18
+   */
+  protected void executeBatch(List sqls) throws SQLException {
+
+    Connection con = null;
+    Statement stmt = null;
+    boolean autoCommit = true;
+
+    try {
+        con = getConnection();
+        autoCommit = con.getAutoCommit();
+        if (autoCommit) {
+            con.setAutoCommit(false);
+        }
+
+        stmt = con.createStatement();
+        try {
+            if (con.getMetaData().supportsBatchUpdates()) {
+                for (Iterator i = sqls.iterator(); i.hasNext();) {
+                    stmt.addBatch((String) i.next());
+                }
+                stmt.executeBatch();
+            } else {
+                for (Iterator i = sqls.iterator(); i.hasNext();) {
+                    stmt.executeUpdate((String) i.next());
+                }
+            }
+            con.commit();
+        } catch (SQLException e) {
+            con.rollback();
+            throw e;
+        }
+    } finally {
+        try {
+            if(stmt != null) {
+                stmt.close();
+            }
+            if (con != null && autoCommit) {
+                con.setAutoCommit(true);
+            }
+        } finally {
+            closeConnection(con);
+        }
+    }
+  }
+
 
   /**
    * Override this to return the connection to a pool, or to clean up the
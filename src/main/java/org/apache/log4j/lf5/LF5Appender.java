@@ -101,7 +101,7 @@ public class LF5Appender extends AppenderSkeleton {
     String nestedDiagnosticContext = event.getNDC();
     String threadDescription = event.getThreadName();
     String level = event.getLevel().toString();
-    long time = event.timeStamp;
+    long time = event.getTimeStamp();
     LocationInfo locationInfo = event.getLocationInformation();
 
     // Add the logging event information to a LogRecord
@@ -109,7 +109,7 @@ public class LF5Appender extends AppenderSkeleton {
 
     record.setCategory(category);
     record.setMessage(logMessage);
-    record.setLocation(locationInfo.fullInfo);
+    record.setLocation(locationInfo.getFullInfo());
     record.setMillis(time);
     record.setThreadDescription(threadDescription);
 
@@ -102,18 +102,19 @@ public final class BridgePatternConverter
     //
     //  code should be unreachable.
     //
-    StringBuffer sbuf = new StringBuffer();
+    StringBuilder sbuf = new StringBuilder();
     format(sbuf, event);
 
     return sbuf.toString();
   }
 
   /**
-     Format event to string buffer.
-     @param sbuf string buffer to receive formatted event, may not be null.
+     Format event to string builder.
+     @param sbuf string builder to receive formatted event, may not be null.
      @param e event to format, may not be null.
+     @since 1.2.18
    */
-  public void format(final StringBuffer sbuf, final LoggingEvent e) {
+  public void format(final StringBuilder sbuf, final LoggingEvent e) {
     for (int i = 0; i < patternConverters.length; i++) {
       int startField = sbuf.length();
       patternConverters[i].format(e, sbuf);
@@ -27,7 +27,9 @@ import java.util.TimeZone;
 
 /**
  * CachedDateFormat optimizes the performance of a wrapped
- * DateFormat.  The implementation is not thread-safe.
+ * DateFormat.  The implementation is not thread-safe,
+ * see {@link org.apache.log4j.helpers.DateFormatCache} for
+ * a variant which can be shared by threads.
  * If the millisecond pattern is not recognized,
  * the class will only use the cache if the
  * same value is requested.
@@ -239,14 +241,38 @@ public final class CachedDateFormat extends DateFormat {
    * @return the formatted time string.
    */
   public StringBuffer format(long now, StringBuffer buf) {
+    buf.append(formatCached(now));
+
+    return buf;
+  }
+
+  /**
+   * Formats a millisecond count into a date/time string.
+   *
+   *  @param now Number of milliseconds after midnight 1 Jan 1970 GMT.
+   *  @param buf the string builder to write to.
+   * @return the formatted time string.
+   * @since 1.2.18
+   */
+  public StringBuilder format(long now, StringBuilder buf) {
+    buf.append(formatCached(now));
+
+    return buf;
+  }
+
+  /**
+   * Brings the cache up to date with the requested time.
+   *
+   *  @param now Number of milliseconds after midnight 1 Jan 1970 GMT.
+   * @return the cache, holding the formatted time.
+   */
+  private StringBuffer formatCached(long now) {
     //
     // If the current requested time is identical to the previously
-    //     requested time, then append the cache contents.
+    //     requested time, then use the cache contents.
     //
     if (now == previousTime) {
-      buf.append(cache);
-
-      return buf;
+      return cache;
     }
 
     //
@@ -270,9 +296,8 @@ public final class CachedDateFormat extends DateFormat {
         //   update the previously requested time
         //      (the slot begin should be unchanged)
         previousTime = now;
-        buf.append(cache);
 
-        return buf;
+        return cache;
     }
 
     //
@@ -281,7 +306,6 @@ public final class CachedDateFormat extends DateFormat {
     cache.setLength(0);
     tmpDate.setTime(now);
     cache.append(formatter.format(tmpDate));
-    buf.append(cache);
     previousTime = now;
     slotBegin = (previousTime / 1000) * 1000;
 
@@ -298,7 +322,7 @@ public final class CachedDateFormat extends DateFormat {
         findMillisecondStart(now, cache.toString(), formatter);
     }
 
-    return buf;
+    return cache;
   }
 
   /**
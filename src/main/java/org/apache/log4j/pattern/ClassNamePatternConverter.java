@@ -51,7 +51,7 @@ public final class ClassNamePatternConverter extends NamePatternConverter {
     * @param event event to format.
    * @param toAppendTo string buffer to which class name will be appended.
    */
-  public void format(final LoggingEvent event, final StringBuffer toAppendTo) {
+  public void format(final LoggingEvent event, final StringBuilder toAppendTo) {
     final int initialLength = toAppendTo.length();
     LocationInfo li = event.getLocationInformation();
 
@@ -17,6 +17,8 @@
 
 package org.apache.log4j.pattern;
 
+import org.apache.log4j.helpers.DateFormatCache;
+import org.apache.log4j.helpers.InstantDateFormat;
 import org.apache.log4j.helpers.LogLog;
 import org.apache.log4j.spi.LoggingEvent;
 
@@ -62,9 +64,14 @@ public final class DatePatternConverter extends LoggingEventPatternConverter {
      */
   private static final String ISO8601_PATTERN = "yyyy-MM-dd HH:mm:ss,SSS";
   /**
-   * Date format.
+   * Date format, shared by threads without locking.
    */
-  private final CachedDateFormat df;
+  private final DateFormatCache df;
+
+  /**
+   * java.time based format used instead of df, may be null.
+   */
+  private final InstantDateFormat instantFormat;
 
     /**
      * This class wraps a DateFormat and forces the time zone to the
@@ -102,6 +109,14 @@ public final class DatePatternConverter extends LoggingEventPatternConverter {
     public Date parse(String source, ParsePosition pos) {
         dateFormat.setTimeZone(TimeZone.getDefault());
         return dateFormat.parse(source, pos);
+    }
+
+        /**
+         * Clones the wrapped instance as well, so that clones
+         * can be used by different threads.
+         */
+    public Object clone() {
+        return new DefaultZoneDateFormat((DateFormat) dateFormat.clone());
     }
   }
   
@@ -123,6 +138,10 @@ public final class DatePatternConverter extends LoggingEventPatternConverter {
     }
 
     String pattern;
+    //
+    //   the named formats, and patterns with fractions of a millisecond
+    //      which SimpleDateFormat cannot handle, use java.time.
+    boolean javaTime = true;
 
     if (
       (patternOption == null)
@@ -134,7 +153,29 @@ public final class DatePatternConverter extends LoggingEventPatternConverter {
       pattern = DATE_AND_TIME_PATTERN;
     } else {
       pattern = patternOption;
+      javaTime = InstantDateFormat.isSubMillisecond(pattern);
+    }
+
+    if (javaTime) {
+      InstantDateFormat format = null;
+      try {
+        TimeZone tz = null;
+        if ((options != null) && (options.length > 1)) {
+          tz = TimeZone.getTimeZone((String) options[1]);
+        }
+        format = new InstantDateFormat(pattern, tz);
+      } catch (IllegalArgumentException e) {
+        LogLog.warn(
+          "Could not instantiate DateTimeFormatter with pattern "
+          + patternOption, e);
+      }
+      if (format != null) {
+        instantFormat = format;
+        df = null;
+        return;
+      }
     }
+    instantFormat = null;
 
     int maximumCacheValidity = 1000;
     DateFormat simpleFormat = null;
@@ -159,7 +200,7 @@ public final class DatePatternConverter extends LoggingEventPatternConverter {
       simpleFormat = new DefaultZoneDateFormat(simpleFormat);
     }
 
-    df = new CachedDateFormat(simpleFormat, maximumCacheValidity);
+    df = new DateFormatCache(simpleFormat, maximumCacheValidity);
   }
 
   /**
@@ -175,9 +216,12 @@ public final class DatePatternConverter extends LoggingEventPatternConverter {
   /**
    * {@inheritDoc}
    */
-  public void format(final LoggingEvent event, final StringBuffer output) {
-    synchronized(this) {
-    	df.format(event.timeStamp, output);
+  public void format(final LoggingEvent event, final StringBuilder output) {
+    if (instantFormat != null) {
+      instantFormat.format(
+        event.getTimeStamp(), event.getNanoOfMillisecond(), output);
+    } else {
+      df.format(event.getTimeStamp(), output);
     }
   }
 
@@ -192,14 +236,41 @@ public final class DatePatternConverter extends LoggingEventPatternConverter {
     super.format(obj, output);
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  public void format(final Object obj, final StringBuilder output) {
+    if (obj instanceof Date) {
+      format((Date) obj, output);
+    }
+
+    super.format(obj, output);
+  }
+
   /**
    * Append formatted date to string buffer.
    * @param date date
    * @param toAppendTo buffer to which formatted date is appended.
    */
   public void format(final Date date, final StringBuffer toAppendTo) {
-    synchronized(this) {
-    	df.format(date.getTime(), toAppendTo);
+    if (instantFormat != null) {
+      instantFormat.format(date.getTime(), 0, toAppendTo);
+    } else {
+      df.format(date.getTime(), toAppendTo);
+    }
+  }
+
+  /**
+   * Append formatted date to string builder.
+   * @param date date
+   * @param toAppendTo buffer to which formatted date is appended.
+   * @since 1.2.18
+   */
+  public void format(final Date date, final StringBuilder toAppendTo) {
+    if (instantFormat != null) {
+      instantFormat.format(date.getTime(), 0, toAppendTo);
+    } else {
+      df.format(date.getTime(), toAppendTo);
     }
   }
 }
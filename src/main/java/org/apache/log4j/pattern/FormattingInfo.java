@@ -131,4 +131,36 @@ public final class FormattingInfo {
       }
     }
   }
+
+  /**
+   * Adjust the content of the buffer based on the specified lengths and alignment.
+   *
+   * @param fieldStart start of field in buffer.
+   * @param buffer buffer to be modified.
+   * @since 1.2.18
+   */
+  public void format(final int fieldStart, final StringBuilder buffer) {
+    final int rawLength = buffer.length() - fieldStart;
+
+    if (rawLength > maxLength) {
+      buffer.delete(fieldStart, buffer.length() - maxLength);
+    } else if (rawLength < minLength) {
+      if (leftAlign) {
+        final int fieldEnd = buffer.length();
+        buffer.setLength(fieldStart + minLength);
+
+        for (int i = fieldEnd; i < buffer.length(); i++) {
+          buffer.setCharAt(i, ' ');
+        }
+      } else {
+        int padLength = minLength - rawLength;
+
+        for (; padLength > 8; padLength -= 8) {
+          buffer.insert(fieldStart, SPACES);
+        }
+
+        buffer.insert(fieldStart, SPACES, 0, padLength);
+      }
+    }
+  }
 }
@@ -54,11 +54,11 @@ public final class FullLocationPatternConverter
   /**
    * {@inheritDoc}
    */
-  public void format(final LoggingEvent event, final StringBuffer output) {
+  public void format(final LoggingEvent event, final StringBuilder output) {
     LocationInfo locationInfo = event.getLocationInformation();
 
     if (locationInfo != null) {
-      output.append(locationInfo.fullInfo);
+      output.append(locationInfo.getFullInfo());
     }
   }
 }
@@ -61,4 +61,17 @@ public final class IntegerPatternConverter extends PatternConverter {
       toAppendTo.append(Long.toString(((Date) obj).getTime()));
     }
   }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void format(Object obj, final StringBuilder toAppendTo) {
+    if (obj instanceof Integer) {
+      toAppendTo.append(((Integer) obj).intValue());
+    }
+
+    if (obj instanceof Date) {
+      toAppendTo.append(((Date) obj).getTime());
+    }
+  }
 }
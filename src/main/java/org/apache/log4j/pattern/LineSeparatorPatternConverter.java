@@ -60,7 +60,7 @@ public final class LineSeparatorPatternConverter
   /**
    * {@inheritDoc}
    */
-  public void format(LoggingEvent event, final StringBuffer toAppendTo) {
+  public void format(LoggingEvent event, final StringBuilder toAppendTo) {
     toAppendTo.append(lineSep);
   }
 
@@ -70,4 +70,11 @@ public final class LineSeparatorPatternConverter
   public void format(final Object obj, final StringBuffer toAppendTo) {
     toAppendTo.append(lineSep);
   }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void format(final Object obj, final StringBuilder toAppendTo) {
+    toAppendTo.append(lineSep);
+  }
 }
@@ -44,7 +44,7 @@ public final class LiteralPatternConverter extends LoggingEventPatternConverter
   /**
    * {@inheritDoc}
    */
-  public void format(final LoggingEvent event, final StringBuffer toAppendTo) {
+  public void format(final LoggingEvent event, final StringBuilder toAppendTo) {
     toAppendTo.append(literal);
   }
 
@@ -54,4 +54,11 @@ public final class LiteralPatternConverter extends LoggingEventPatternConverter
   public void format(final Object obj, final StringBuffer toAppendTo) {
     toAppendTo.append(literal);
   }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void format(final Object obj, final StringBuilder toAppendTo) {
+    toAppendTo.append(literal);
+  }
 }
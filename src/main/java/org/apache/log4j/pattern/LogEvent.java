@@ -249,7 +249,7 @@ public class LogEvent implements java.io.Serializable {
    */
   public LocationInfo getLocationInformation() {
     if(locationInfo == null) {
-      locationInfo = new LocationInfo(new Throwable(), fqnOfCategoryClass);
+      locationInfo = LocationInfo.locate(fqnOfCategoryClass);
     }
     return locationInfo;
   }
@@ -336,12 +336,9 @@ public class LogEvent implements java.io.Serializable {
   void getMDCCopy() {
     if(mdcCopyLookupRequired) {
       mdcCopyLookupRequired = false;
-      // the clone call is required for asynchronous logging.
-      // See also bug #5932.
-      Hashtable t = (Hashtable) MDC.getContext();
-      if(t != null) {
-	mdcCopy = (Hashtable) t.clone();
-      }
+      // MDC.getContext returns a copy, as asynchronous logging
+      // requires. See also bug #5932.
+      mdcCopy = MDC.getContext();
     }
   }
 
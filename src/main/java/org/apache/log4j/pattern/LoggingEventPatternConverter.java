@@ -28,23 +28,81 @@ import org.apache.log4j.spi.LoggingEvent;
  *
  */
 public abstract class LoggingEventPatternConverter extends PatternConverter {
+  /**
+   * Set when a subclass overrides the StringBuilder variant of format,
+   * in which case the StringBuffer variant calls it.
+   */
+  private final boolean formatsStringBuilder;
+
   /**
    * Constructs an instance of LoggingEventPatternConverter.
    * @param name name of converter.
    * @param style CSS style for output.
+   * @throws IllegalStateException if the subclass overrides neither
+   * format method.
    */
   protected LoggingEventPatternConverter(
     final String name, final String style) {
     super(name, style);
+    boolean formatsStringBuffer = overridesFormat(StringBuffer.class);
+    formatsStringBuilder = overridesFormat(StringBuilder.class);
+    if (!formatsStringBuffer && !formatsStringBuilder) {
+      throw new IllegalStateException(getClass().getName()
+        + " must override format(LoggingEvent, StringBuilder)");
+    }
+  }
+
+  /**
+   * Determines whether a subclass declares format for the given buffer type.
+   * @param bufferType StringBuffer or StringBuilder.
+   * @return true if the method is overridden.
+   */
+  private boolean overridesFormat(final Class bufferType) {
+    try {
+      return getClass().getMethod("format",
+        new Class[] { LoggingEvent.class, bufferType }).getDeclaringClass()
+        != LoggingEventPatternConverter.class;
+    } catch (NoSuchMethodException ex) {
+      return false;
+    }
   }
 
   /**
    * Formats an event into a string buffer.
+   *
+   * Subclasses must override this method or
+   * {@link #format(LoggingEvent, StringBuilder)}, the constructor
+   * fails if neither is overridden.
+   *
    * @param event event to format, may not be null.
    * @param toAppendTo string buffer to which the formatted event will be appended.  May not be null.
    */
-  public abstract void format(
-    final LoggingEvent event, final StringBuffer toAppendTo);
+  public void format(
+    final LoggingEvent event, final StringBuffer toAppendTo) {
+    if (formatsStringBuilder) {
+      StringBuilder buf = new StringBuilder();
+      format(event, buf);
+      toAppendTo.append(buf);
+    }
+  }
+
+  /**
+   * Formats an event into a string builder.
+   *
+   * The default implementation formats into a temporary string buffer
+   * so that existing converters keep working.  Layouts call this method,
+   * converters should override it rather than the string buffer one.
+   *
+   * @param event event to format, may not be null.
+   * @param toAppendTo string builder to which the formatted event will be appended.  May not be null.
+   * @since 1.2.18
+   */
+  public void format(
+    final LoggingEvent event, final StringBuilder toAppendTo) {
+    StringBuffer buf = new StringBuffer();
+    format(event, buf);
+    toAppendTo.append(buf);
+  }
 
   /**
    * {@inheritDoc}
@@ -55,6 +113,15 @@ public abstract class LoggingEventPatternConverter extends PatternConverter {
     }
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  public void format(final Object obj, final StringBuilder output) {
+    if (obj instanceof LoggingEvent) {
+      format((LoggingEvent) obj, output);
+    }
+  }
+
   /**
    * Normally pattern converters are not meant to handle Exceptions although
    * few pattern converters might.
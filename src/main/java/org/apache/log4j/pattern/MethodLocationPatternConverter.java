@@ -22,7 +22,7 @@ import org.apache.log4j.spi.LoggingEvent;
 
 
 /**
- * Return the event's line location information in a StringBuffer.
+ * Return the event's line location information in a StringBuilder.
  *
  * @author Ceki G&uuml;lc&uuml;
  */
@@ -54,7 +54,7 @@ public final class MethodLocationPatternConverter
   /**
    * {@inheritDoc}
    */
-  public void format(final LoggingEvent event, final StringBuffer toAppendTo) {
+  public void format(final LoggingEvent event, final StringBuilder toAppendTo) {
     LocationInfo locationInfo = event.getLocationInformation();
 
     if (locationInfo != null) {
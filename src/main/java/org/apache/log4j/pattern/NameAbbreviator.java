@@ -31,6 +31,41 @@ public abstract class NameAbbreviator {
    */
   private static final NameAbbreviator DEFAULT = new NOPAbbreviator();
 
+  /**
+   * Set when a subclass overrides the StringBuilder variant of abbreviate,
+   * in which case the StringBuffer variant calls it.
+   */
+  private final boolean abbreviatesStringBuilder;
+
+  /**
+   * Constructs an instance of NameAbbreviator.
+   * @throws IllegalStateException if the subclass overrides neither
+   * abbreviate method.
+   */
+  protected NameAbbreviator() {
+    boolean abbreviatesStringBuffer = overridesAbbreviate(StringBuffer.class);
+    abbreviatesStringBuilder = overridesAbbreviate(StringBuilder.class);
+    if (!abbreviatesStringBuffer && !abbreviatesStringBuilder) {
+      throw new IllegalStateException(getClass().getName()
+        + " must override abbreviate(int, StringBuilder)");
+    }
+  }
+
+  /**
+   * Determines whether a subclass declares abbreviate for the given buffer type.
+   * @param bufferType StringBuffer or StringBuilder.
+   * @return true if the method is overridden.
+   */
+  private boolean overridesAbbreviate(final Class bufferType) {
+    try {
+      return getClass().getMethod("abbreviate",
+        new Class[] { int.class, bufferType }).getDeclaringClass()
+        != NameAbbreviator.class;
+    } catch (NoSuchMethodException ex) {
+      return false;
+    }
+  }
+
   /**
    * Gets an abbreviator.
    *
@@ -140,10 +175,37 @@ public abstract class NameAbbreviator {
   /**
    * Abbreviates a name in a StringBuffer.
    *
+   * Subclasses must override this method or
+   * {@link #abbreviate(int, StringBuilder)}, the constructor
+   * fails if neither is overridden.
+   *
    * @param nameStart starting position of name in buf.
    * @param buf buffer, may not be null.
    */
-  public abstract void abbreviate(final int nameStart, final StringBuffer buf);
+  public void abbreviate(final int nameStart, final StringBuffer buf) {
+    if (abbreviatesStringBuilder) {
+      StringBuilder name = new StringBuilder(buf.length() - nameStart);
+      name.append(buf, nameStart, buf.length());
+      abbreviate(0, name);
+      buf.setLength(nameStart);
+      buf.append(name);
+    }
+  }
+
+  /**
+   * Abbreviates a name in a StringBuilder.
+   *
+   * @param nameStart starting position of name in buf.
+   * @param buf buffer, may not be null.
+   * @since 1.2.18
+   */
+  public void abbreviate(final int nameStart, final StringBuilder buf) {
+    StringBuffer name = new StringBuffer(buf.length() - nameStart);
+    name.append(buf, nameStart, buf.length());
+    abbreviate(0, name);
+    buf.setLength(nameStart);
+    buf.append(name);
+  }
 
   /**
    * Abbreviator that simply appends full name to buffer.
@@ -158,7 +220,7 @@ public abstract class NameAbbreviator {
     /**
      * {@inheritDoc}
      */
-    public void abbreviate(final int nameStart, final StringBuffer buf) {
+    public void abbreviate(final int nameStart, final StringBuilder buf) {
     }
   }
 
@@ -184,15 +246,14 @@ public abstract class NameAbbreviator {
      * @param buf buffer to append abbreviation.
      * @param nameStart start of name to abbreviate.
      */
-    public void abbreviate(final int nameStart, final StringBuffer buf) {
+    public void abbreviate(final int nameStart, final StringBuilder buf) {
       // We substract 1 from 'len' when assigning to 'end' to avoid out of
       // bounds exception in return r.substring(end+1, len). This can happen if
       // precision is 1 and the category name ends with a dot.
       int end = buf.length() - 1;
 
-      String bufString = buf.toString();
       for (int i = count; i > 0; i--) {
-        end = bufString.lastIndexOf(".", end - 1);
+        end = buf.lastIndexOf(".", end - 1);
 
         if ((end == -1) || (end < nameStart)) {
           return;
@@ -225,7 +286,7 @@ public abstract class NameAbbreviator {
      * @param buf buffer to append abbreviation.
      * @param nameStart start of name to abbreviate.
      */
-    public void abbreviate(final int nameStart, final StringBuffer buf) {
+    public void abbreviate(final int nameStart, final StringBuilder buf) {
       int i = count;
       for(int pos = buf.indexOf(".", nameStart);
         pos != -1;
@@ -273,8 +334,8 @@ public abstract class NameAbbreviator {
      * @param startPos starting index of name element.
      * @return starting index of next element.
      */
-    public int abbreviate(final StringBuffer buf, final int startPos) {
-      int nextDot = buf.toString().indexOf(".", startPos);
+    public int abbreviate(final StringBuilder buf, final int startPos) {
+      int nextDot = buf.indexOf(".", startPos);
 
       if (nextDot != -1) {
         if ((nextDot - startPos) > charCount) {
@@ -325,7 +386,7 @@ public abstract class NameAbbreviator {
      * @param buf buffer that abbreviated name is appended.
      * @param nameStart start of name.
      */
-    public void abbreviate(final int nameStart, final StringBuffer buf) {
+    public void abbreviate(final int nameStart, final StringBuilder buf) {
       //
       //  all non-terminal patterns are executed once
       //
@@ -58,4 +58,14 @@ public abstract class NamePatternConverter
   protected final void abbreviate(final int nameStart, final StringBuffer buf) {
     abbreviator.abbreviate(nameStart, buf);
   }
+
+  /**
+   * Abbreviate name in string builder.
+   * @param nameStart starting position of name to abbreviate.
+   * @param buf string builder containing name.
+   * @since 1.2.18
+   */
+  protected final void abbreviate(final int nameStart, final StringBuilder buf) {
+    abbreviator.abbreviate(nameStart, buf);
+  }
 }
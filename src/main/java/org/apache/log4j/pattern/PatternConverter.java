@@ -61,6 +61,23 @@ public abstract class PatternConverter {
    */
   public abstract void format(final Object obj, final StringBuffer toAppendTo);
 
+  /**
+   * Formats an object into a string builder.
+   *
+   * The default implementation formats into a temporary string buffer,
+   * so that converters written against the string buffer method
+   * keep working; converters should override it to avoid the copy.
+   *
+   * @param obj event to format, may not be null.
+   * @param toAppendTo string builder to which the formatted event will be appended.  May not be null.
+   * @since 1.2.18
+   */
+  public void format(final Object obj, final StringBuilder toAppendTo) {
+    StringBuffer buf = new StringBuffer();
+    format(obj, buf);
+    toAppendTo.append(buf);
+  }
+
   /**
    * This method returns the name of the conversion pattern.
    *
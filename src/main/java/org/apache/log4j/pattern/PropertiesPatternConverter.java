@@ -71,7 +71,7 @@ public final class PropertiesPatternConverter
   /**
    * {@inheritDoc}
    */
-  public void format(final LoggingEvent event, final StringBuffer toAppendTo) {
+  public void format(final LoggingEvent event, final StringBuilder toAppendTo) {
     // if there is no additional options, we output every single
     // Key/Value pair for the MDC in a similar format to Hashtable.toString()
     if (option == null) {
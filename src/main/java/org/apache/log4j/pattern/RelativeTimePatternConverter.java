@@ -52,8 +52,8 @@ public class RelativeTimePatternConverter extends LoggingEventPatternConverter {
   /**
    * {@inheritDoc}
    */
-  public void format(final LoggingEvent event, final StringBuffer toAppendTo) {
-    long timestamp = event.timeStamp;
+  public void format(final LoggingEvent event, final StringBuilder toAppendTo) {
+    long timestamp = event.getTimeStamp();
 
     if (!lastTimestamp.format(timestamp, toAppendTo)) {
       final String formatted =
@@ -93,7 +93,7 @@ public class RelativeTimePatternConverter extends LoggingEventPatternConverter {
      * @param toAppendTo buffer to append formatted timestamp.
      * @return true if requested timestamp matched cached timestamp.
      */
-    public boolean format(long newTimestamp, final StringBuffer toAppendTo) {
+    public boolean format(long newTimestamp, final StringBuilder toAppendTo) {
       if (newTimestamp == timestamp) {
         toAppendTo.append(formatted);
 
@@ -53,7 +53,7 @@ public class SequenceNumberPatternConverter
   /**
    * {@inheritDoc}
    */
-  public void format(final LoggingEvent event, final StringBuffer toAppendTo) {
+  public void format(final LoggingEvent event, final StringBuilder toAppendTo) {
     toAppendTo.append("0");
   }
 }
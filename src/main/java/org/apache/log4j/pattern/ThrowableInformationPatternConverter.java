@@ -76,7 +76,7 @@ public class ThrowableInformationPatternConverter
   /**
    * {@inheritDoc}
    */
-  public void format(final LoggingEvent event, final StringBuffer toAppendTo) {
+  public void format(final LoggingEvent event, final StringBuilder toAppendTo) {
     if (maxLines != 0) {
       ThrowableInformation information = event.getThrowableInformation();
 
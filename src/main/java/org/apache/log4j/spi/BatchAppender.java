@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.log4j.spi;
+
+import org.apache.log4j.Appender;
+
+/**
+   Optional interface for appenders which can process several events
+   in one call, for example to write them out with a single flush or
+   commit.
+
+   <p>Callers which hold a batch of events, such as the dispatcher of
+   {@link org.apache.log4j.AsyncAppender}, check for this interface
+   through {@link org.apache.log4j.helpers.AppenderAttachableImpl} and
+   fall back to {@link Appender#doAppend(LoggingEvent)} for other
+   appenders.
+
+   @since 1.2.18 */
+public interface BatchAppender extends Appender {
+
+  /**
+     Log the first <code>count</code> events of <code>events</code>,
+     in order. Each event is subject to the same threshold and filter
+     checks as if it had been passed to {@link
+     Appender#doAppend(LoggingEvent)}. The array is not retained.
+   */
+  public
+  void doAppend(LoggingEvent[] events, int count);
+}
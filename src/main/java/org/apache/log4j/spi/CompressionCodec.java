@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.log4j.spi;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+   Implementations of this interface compress the files rolled over by
+   {@link org.apache.log4j.RollingFileAppender} and {@link
+   org.apache.log4j.DailyRollingFileAppender} when their
+   <b>Compression</b> option names the implementing class.
+
+   <p>Implementations must have a public no-argument constructor and be
+   thread-safe.
+
+   @since 1.2.18
+*/
+public interface CompressionCodec {
+
+  /**
+     Returns the extension appended to the names of compressed files,
+     for example <code>".gz"</code>.
+   */
+  public String getFileExtension();
+
+  /**
+     Returns a stream compressing the bytes written to it into
+     <code>out</code>. Closing the returned stream closes
+     <code>out</code>.
+   */
+  public OutputStream createOutputStream(OutputStream out) throws IOException;
+}
@@ -22,11 +22,19 @@ package org.apache.log4j.spi;
 import org.apache.log4j.Layout;
 import org.apache.log4j.helpers.LogLog;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.io.InterruptedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 import java.lang.reflect.InvocationTargetException;
+import java.util.Iterator;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
    The internal representation of caller location information.
@@ -57,8 +65,11 @@ public class LocationInfo implements java.io.Serializable {
     */
   public String fullInfo;
 
-  private static StringWriter sw = new StringWriter();
-  private static PrintWriter pw = new PrintWriter(sw);
+  /**
+     Caller's stack frame when obtained by {@link #locate}, the
+     other fields are derived from it on first access.
+  */
+  private transient StackTraceElement frame;
 
   private static Method getStackTraceMethod;
   private static Method getClassNameMethod;
@@ -84,6 +95,15 @@ public class LocationInfo implements java.io.Serializable {
 
 
 
+  /**
+     <code>java.lang.StackWalker</code> instance and the handles used to
+     query its frames, all <code>null</code> before JDK 9.
+  */
+  private static final Object stackWalker;
+  private static final MethodHandle walkHandle;
+  private static final MethodHandle frameClassNameHandle;
+  private static final MethodHandle frameToElementHandle;
+
   // Check if we are running in IBM's visual age.
   static boolean inVisualAge = false;
   static {
@@ -106,6 +126,157 @@ public class LocationInfo implements java.io.Serializable {
       } catch(NoSuchMethodException ex) {
           LogLog.debug("LocationInfo will use pre-JDK 1.4 methods to determine location.");
       }
+      // assigned once, so that invokeExact on the handles can be inlined
+      Object walker = null;
+      MethodHandle walk = null;
+      MethodHandle frameClassName = null;
+      MethodHandle frameToElement = null;
+      try {
+          MethodHandles.Lookup lookup = MethodHandles.lookup();
+          Class walkerClass = Class.forName("java.lang.StackWalker");
+          Class frameClass = Class.forName("java.lang.StackWalker$StackFrame");
+          walker = walkerClass.getMethod("getInstance", (Class[]) null).invoke(null, (Object[]) null);
+          walk = lookup.findVirtual(walkerClass, "walk",
+                  MethodType.methodType(Object.class, Function.class))
+                  .asType(MethodType.methodType(Object.class, Object.class, Function.class));
+          frameClassName = lookup.findVirtual(frameClass, "getClassName",
+                  MethodType.methodType(String.class))
+                  .asType(MethodType.methodType(String.class, Object.class));
+          frameToElement = lookup.findVirtual(frameClass, "toStackTraceElement",
+                  MethodType.methodType(StackTraceElement.class))
+                  .asType(MethodType.methodType(StackTraceElement.class, Object.class));
+      } catch(Throwable ex) {
+          walk = null;
+          LogLog.debug("StackWalker not available, LocationInfo will use Throwable.getStackTrace.", ex);
+      }
+      stackWalker = walker;
+      walkHandle = walk;
+      frameClassNameHandle = frameClassName;
+      frameToElementHandle = frameToElement;
+  }
+
+  /**
+     Returns the location of the caller of the outermost method of
+     <code>fqnOfCallingClass</code> found on the current thread's stack.
+
+     <p>Only the caller's stack frame is captured: it is walked with
+     <code>java.lang.StackWalker</code> when available, otherwise taken
+     from <code>Throwable.getStackTrace()</code>. As with {@link
+     #LocationInfo(Throwable, String)}, the caller is the frame
+     following the last frame of <code>fqnOfCallingClass</code>, so the
+     whole stack is walked. The public {@link #fullInfo} field is set
+     from the frame; the class, method, file and line strings returned
+     by the getters are each derived from the frame when first
+     requested. No lock is taken and no state is shared between calls.
+
+     @param fqnOfCallingClass class name of first class considered part of
+        the logging framework.  Location will be site that calls a method on this class.
+     @return location, never null.
+     @since 1.2.18
+   */
+  public static LocationInfo locate(final String fqnOfCallingClass) {
+    StackTraceElement caller = null;
+    if (fqnOfCallingClass != null) {
+      if (walkHandle != null) {
+        try {
+          Object found = walkHandle.invokeExact(stackWalker,
+                  (Function) new CallerFinder(fqnOfCallingClass));
+          caller = (StackTraceElement) found;
+        } catch(RuntimeException ex) {
+          throw ex;
+        } catch(Error ex) {
+          throw ex;
+        } catch(Throwable ex) {
+          LogLog.debug("LocationInfo failed using StackWalker", ex);
+        }
+      } else {
+        caller = findCaller(new Throwable().getStackTrace(), fqnOfCallingClass);
+      }
+    }
+    LocationInfo info = new LocationInfo(null, null);
+    info.frame = caller;
+    if (caller != null) {
+      info.fullInfo = toFullInfo(caller);
+    }
+    return info;
+  }
+
+  /**
+     Formats <code>frame</code> as {@link #fullInfo}, without setting
+     the fields behind the getters.
+   */
+  private static String toFullInfo(final StackTraceElement frame) {
+    String file = frame.getFileName();
+    int line = frame.getLineNumber();
+    StringBuffer buf = new StringBuffer();
+    buf.append(frame.getClassName());
+    buf.append(".");
+    buf.append(frame.getMethodName());
+    buf.append("(");
+    buf.append(file == null ? NA : file);
+    buf.append(":");
+    if (line < 0) {
+      buf.append(NA);
+    } else {
+      buf.append(line);
+    }
+    buf.append(")");
+    return buf.toString();
+  }
+
+  /**
+     Returns the element following the last element of
+     <code>fqnOfCallingClass</code>, or null.
+   */
+  private static StackTraceElement findCaller(final StackTraceElement[] elements,
+                                              final String fqnOfCallingClass) {
+    for (int i = elements.length - 2; i >= 0; i--) {
+      if (fqnOfCallingClass.equals(elements[i].getClassName())) {
+        return elements[i + 1];
+      }
+    }
+    return null;
+  }
+
+  /**
+     Stack walking function returning the caller's frame, see
+     {@link #findCaller}.
+   */
+  private static final class CallerFinder implements Function {
+    private final String fqnOfCallingClass;
+
+    CallerFinder(final String fqnOfCallingClass) {
+      this.fqnOfCallingClass = fqnOfCallingClass;
+    }
+
+    public Object apply(final Object frames) {
+      boolean previousMatched = false;
+      Object caller = null;
+      try {
+        for (Iterator iter = ((Stream) frames).iterator(); iter.hasNext();) {
+          Object frame = iter.next();
+          String className = (String) frameClassNameHandle.invokeExact(frame);
+          if (fqnOfCallingClass.equals(className)) {
+            previousMatched = true;
+          } else {
+            if (previousMatched) {
+              caller = frame;
+            }
+            previousMatched = false;
+          }
+        }
+        if (caller != null) {
+          return (StackTraceElement) frameToElementHandle.invokeExact(caller);
+        }
+      } catch(RuntimeException ex) {
+        throw ex;
+      } catch(Error ex) {
+        throw ex;
+      } catch(Throwable ex) {
+        LogLog.debug("LocationInfo failed using StackWalker", ex);
+      }
+      return null;
+    }
   }
 
   /**
@@ -184,13 +355,9 @@ public class LocationInfo implements java.io.Serializable {
           }
       }
 
-      String s;
-      // Protect against multiple access to sw.
-      synchronized(sw) {
-	t.printStackTrace(pw);
-	s = sw.toString();
-	sw.getBuffer().setLength(0);
-      }
+      StringWriter sw = new StringWriter();
+      t.printStackTrace(new PrintWriter(sw));
+      String s = sw.toString();
       //System.out.println("s is ["+s+"].");
       int ibegin, iend;
 
@@ -292,13 +459,31 @@ public class LocationInfo implements java.io.Serializable {
 	  this.fullInfo = buf.toString();
     }
 
+    /**
+       Returns all available caller information, in the format
+       <code>fully.qualified.classname.of.caller.methodName(Filename.java:line)</code>,
+       or null if the location is not known.
+
+       @since 1.2.18
+    */
+    public
+    String getFullInfo() {
+      if(fullInfo == null && frame != null) {
+        fullInfo = toFullInfo(frame);
+      }
+      return fullInfo;
+    }
+
     /**
        Return the fully qualified class name of the caller making the
        logging request.
     */
     public
     String getClassName() {
-      if(fullInfo == null) return NA;
+      if(className == null && frame != null) {
+        className = frame.getClassName();
+      }
+      if(fullInfo == null && className == null) return NA;
       if(className == null) {
 	// Starting the search from '(' is safer because there is
 	// potentially a dot between the parentheses.
@@ -338,7 +523,13 @@ public class LocationInfo implements java.io.Serializable {
     */
     public
     String getFileName() {
-      if(fullInfo == null) return NA;
+      if(fileName == null && frame != null) {
+        fileName = frame.getFileName();
+        if (fileName == null) {
+          fileName = NA;
+        }
+      }
+      if(fullInfo == null && fileName == null) return NA;
 
       if(fileName == null) {
 	int iend = fullInfo.lastIndexOf(':');
@@ -359,7 +550,11 @@ public class LocationInfo implements java.io.Serializable {
     */
     public
     String getLineNumber() {
-      if(fullInfo == null) return NA;
+      if(lineNumber == null && frame != null) {
+        int line = frame.getLineNumber();
+        lineNumber = (line < 0) ? NA : String.valueOf(line);
+      }
+      if(fullInfo == null && lineNumber == null) return NA;
 
       if(lineNumber == null) {
 	int iend = fullInfo.lastIndexOf(')');
@@ -377,7 +572,10 @@ public class LocationInfo implements java.io.Serializable {
     */
     public
     String getMethodName() {
-      if(fullInfo == null) return NA;
+      if(methodName == null && frame != null) {
+        methodName = frame.getMethodName();
+      }
+      if(fullInfo == null && methodName == null) return NA;
       if(methodName == null) {
 	int iend = fullInfo.lastIndexOf('(');
 	int ibegin = fullInfo.lastIndexOf('.', iend);
@@ -388,4 +586,13 @@ public class LocationInfo implements java.io.Serializable {
       }
       return methodName;
     }
+
+    /**
+       Resolves {@link #fullInfo}, the only serialized field, before
+       writing.
+    */
+    private void writeObject(final ObjectOutputStream oos) throws IOException {
+      getFullInfo();
+      oos.defaultWriteObject();
+    }
 }
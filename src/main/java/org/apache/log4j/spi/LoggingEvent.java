@@ -22,8 +22,8 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.time.Instant;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.Map;
 import java.util.Set;
@@ -33,6 +33,7 @@ import org.apache.log4j.Level;
 import org.apache.log4j.MDC;
 import org.apache.log4j.NDC;
 import org.apache.log4j.Priority;
+import org.apache.log4j.helpers.InstantDateFormat;
 import org.apache.log4j.helpers.Loader;
 import org.apache.log4j.helpers.LogLog;
 
@@ -101,6 +102,10 @@ public class LoggingEvent implements java.io.Serializable {
   /** The mapped diagnostic context (MDC) of logging event. */
   private Hashtable mdcCopy;
 
+  /** The unmodifiable MDC map of the logging thread, used as long as
+   *  {@link #mdcCopy} is not needed. */
+  private transient Map mdcContext;
+
 
   /** Have we tried to do an NDC lookup? If we did, there is no need
    *  to do it again.  Note that its value is always false when
@@ -133,6 +138,11 @@ public class LoggingEvent implements java.io.Serializable {
   /** The number of milliseconds elapsed from 1/1/1970 until logging event
       was created. */
   public final long timeStamp;
+
+  /** Nanoseconds elapsed within the millisecond of {@link #timeStamp},
+      0 when the time was given in milliseconds. */
+  int nanoOfMillisecond;
+
   /** Location information for the caller. */
   private LocationInfo locationInfo;
 
@@ -156,7 +166,13 @@ public class LoggingEvent implements java.io.Serializable {
     if(throwable != null) {
       this.throwableInfo = new ThrowableInformation(throwable, logger);
     }
-    timeStamp = System.currentTimeMillis();
+    if (InstantDateFormat.isSubMillisecondInUse()) {
+      Instant now = Instant.now();
+      timeStamp = now.toEpochMilli();
+      nanoOfMillisecond = now.getNano() % 1000000;
+    } else {
+      timeStamp = System.currentTimeMillis();
+    }
   }
 
   /**
@@ -236,13 +252,38 @@ public class LoggingEvent implements java.io.Serializable {
     }
 
 
+  /**
+     Reinitialize the non-final fields of this event as the first
+     constructor would, dropping any cached NDC, MDC, rendered message,
+     thread name and location. Only {@link ReusableLoggingEvent}
+     instances are ever reset; they keep the caller class, logger name
+     and time stamp themselves.
+   */
+  void reset(Category logger, int nanoOfMillisecond, Priority level,
+             Object message, Throwable throwable) {
+    this.logger = logger;
+    this.level = level;
+    this.message = message;
+    this.throwableInfo = (throwable == null)
+      ? null : new ThrowableInformation(throwable, logger);
+    this.nanoOfMillisecond = nanoOfMillisecond;
+    this.renderedMessage = null;
+    this.threadName = null;
+    this.ndc = null;
+    this.ndcLookupRequired = true;
+    this.mdcCopy = null;
+    this.mdcContext = null;
+    this.mdcCopyLookupRequired = true;
+    this.locationInfo = null;
+  }
+
   /**
      Set the location information for this logging event. The collected
      information is cached for future use.
    */
   public LocationInfo getLocationInformation() {
     if(locationInfo == null) {
-      locationInfo = new LocationInfo(new Throwable(), fqnOfCategoryClass);
+      locationInfo = LocationInfo.locate(getFQNOfLoggerClass());
     }
     return locationInfo;
   }
@@ -326,6 +367,11 @@ public class LoggingEvent implements java.io.Serializable {
       if(r != null) {
         return r;
       }
+    } else if(mdcContext != null) {
+      r = mdcContext.get(key);
+      if(r != null) {
+        return r;
+      }
     }
     return MDC.get(key);
   }
@@ -333,17 +379,42 @@ public class LoggingEvent implements java.io.Serializable {
   /**
      Obtain a copy of this thread's MDC prior to serialization or
      asynchronous logging.  
+
+     <p>The MDC map is never modified, so keeping a reference to it
+     is enough. A hashtable is made from it only when the event is
+     serialized or its properties are changed.
   */
   public
   void getMDCCopy() {
     if(mdcCopyLookupRequired) {
       mdcCopyLookupRequired = false;
-      // the clone call is required for asynchronous logging.
-      // See also bug #5932.
-      Hashtable t = (Hashtable) MDC.getContext();
-      if(t != null) {
-	mdcCopy = (Hashtable) t.clone();
-      }
+      mdcContext = MDC.getContextMap();
+    }
+  }
+
+  /**
+     Makes {@link #mdcCopy} a modifiable copy of the captured MDC.
+   */
+  private
+  Hashtable getMDCTable() {
+    getMDCCopy();
+    if(mdcCopy == null) {
+      mdcCopy = (mdcContext == null) ? new Hashtable() : new Hashtable(mdcContext);
+      mdcContext = null;
+    }
+    return mdcCopy;
+  }
+
+  /**
+     Lets <code>target</code> share the MDC captured by this event.
+   */
+  final
+  void copyMDCTo(LoggingEvent target) {
+    getMDCCopy();
+    target.mdcCopyLookupRequired = false;
+    target.mdcContext = mdcContext;
+    if(mdcCopy != null) {
+      target.mdcCopy = new Hashtable(mdcCopy);
     }
   }
 
@@ -352,6 +423,9 @@ public class LoggingEvent implements java.io.Serializable {
      if(renderedMessage == null && message != null) {
        if(message instanceof String)
 	 renderedMessage = (String) message;
+       else if(message instanceof ParameterizedMessage)
+	 // formats itself, no renderer is looked up
+	 renderedMessage = message.toString();
        else {
 	 LoggerRepository repository = logger.getLoggerRepository();
 
@@ -475,6 +549,9 @@ public class LoggingEvent implements java.io.Serializable {
     // This call has a side effect of setting this.mdcCopy and
     // setting mdcLookupRequired to false if not already false.
     this.getMDCCopy();
+    if(this.mdcContext != null) {
+      this.getMDCTable();
+    }
 
     // This sets the throwable sting representation of the event throwable.
     this.getThrowableStrRep();
@@ -513,13 +590,7 @@ public class LoggingEvent implements java.io.Serializable {
      */
   public final void setProperty(final String propName,
                           final String propValue) {
-        if (mdcCopy == null) {
-            getMDCCopy();
-        }
-        if (mdcCopy == null) {
-            mdcCopy = new Hashtable();
-        }
-        mdcCopy.put(propName, propValue);      
+        getMDCTable().put(propName, propValue);
   }
 
     /**
@@ -558,10 +629,24 @@ public class LoggingEvent implements java.io.Serializable {
      *
      * @since 1.2.15
      */
-    public final long getTimeStamp() {
+    public long getTimeStamp() {
       return timeStamp;
     }
 
+    /**
+     * Returns the nanoseconds elapsed within the millisecond of the time
+     * stamp, from 0 to 999999. They are known when the event took the
+     * current time itself, on a JDK whose clock is that precise, after a
+     * date format with digits below the millisecond was created; they
+     * are 0 otherwise.
+     *
+     * @return nanoseconds within the millisecond of the time stamp.
+     * @since 1.2.18
+     */
+    public final int getNanoOfMillisecond() {
+      return nanoOfMillisecond;
+    }
+
     /**
      * Returns the set of the key values in the properties
      * for the event.
@@ -590,13 +675,14 @@ public class LoggingEvent implements java.io.Serializable {
      */
     public Map getProperties() {
       getMDCCopy();
-      Map properties;
-      if (mdcCopy == null) {
-         properties = new HashMap();
-      } else {
-         properties = mdcCopy;
+      if (mdcCopy != null) {
+         return Collections.unmodifiableMap(mdcCopy);
+      }
+      if (mdcContext != null) {
+         // already unmodifiable
+         return mdcContext;
       }
-      return Collections.unmodifiableMap(properties);
+      return Collections.EMPTY_MAP;
     }
 
     /**
@@ -619,12 +705,6 @@ public class LoggingEvent implements java.io.Serializable {
      * @since 1.2.16
      */
     public Object removeProperty(String propName) {
-        if (mdcCopy == null) {
-            getMDCCopy();
-        }
-        if (mdcCopy == null) {
-            mdcCopy = new Hashtable();
-        }
-        return mdcCopy.remove(propName);
+        return getMDCTable().remove(propName);
     }
 }
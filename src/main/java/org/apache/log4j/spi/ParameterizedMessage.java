@@ -0,0 +1,242 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.log4j.spi;
+
+/**
+   A message made of a pattern and the arguments that replace its
+   placeholders, as created by the parameterized methods of {@link
+   org.apache.log4j.Logger}. The message is formatted when it is first
+   rendered, on the thread that renders it, and not at all if no
+   appender needs it.
+
+   <p>The pattern syntax is that of {@link org.apache.log4j.LogSF}:
+   each <code>{}</code> is replaced by the next argument, a
+   <code>{}</code> left without argument is kept as is, and
+   <code>\{</code> stands for a literal brace.
+
+   <p>When the last argument is a {@link Throwable} that has no
+   placeholder left for it, it is not part of the message but is
+   returned by {@link #getThrowable} to be logged with its stack
+   trace.
+
+   <p>Formatting is done in a buffer owned by the current thread, so
+   no lock is taken and, apart from the resulting string, nothing is
+   allocated.
+
+   @since 1.2.18
+ */
+public final class ParameterizedMessage {
+
+  /**
+     Buffers larger than this are not kept for the next message.
+   */
+  private static final int MAX_BUFFER_SIZE = 1024;
+
+  /**
+     The formatting buffer of each thread. It is taken out while in
+     use, in case an argument logs from its <code>toString</code>.
+   */
+  private static final ThreadLocal buffers = new ThreadLocal();
+
+  private final String pattern;
+  private final Object arg0;
+  private final Object arg1;
+  private Object[] arguments;
+  private boolean argumentsCopied;
+  private final int count;
+  private final Throwable throwable;
+
+  private String formatted;
+
+  /**
+     Creates a message with one argument.
+   */
+  public ParameterizedMessage(final String pattern, final Object arg0) {
+    this(pattern, arg0, null, null, 1);
+  }
+
+  /**
+     Creates a message with two arguments.
+   */
+  public ParameterizedMessage(final String pattern,
+                              final Object arg0, final Object arg1) {
+    this(pattern, arg0, arg1, null, 2);
+  }
+
+  /**
+     Creates a message with any number of arguments. The array is
+     kept until {@link #copyArguments} is called.
+   */
+  public ParameterizedMessage(final String pattern, final Object[] arguments) {
+    this(pattern, null, null, arguments,
+         arguments == null ? 0 : arguments.length);
+  }
+
+  private ParameterizedMessage(final String pattern,
+                               final Object arg0, final Object arg1,
+                               final Object[] arguments, final int count) {
+    this.pattern = pattern;
+    this.arg0 = arg0;
+    this.arg1 = arg1;
+    this.arguments = arguments;
+    Object last = (count == 0) ? null : getArgument(count - 1);
+    if (last instanceof Throwable && countPlaceholders(pattern) < count) {
+      this.throwable = (Throwable) last;
+      this.count = count - 1;
+    } else {
+      this.throwable = null;
+      this.count = count;
+    }
+  }
+
+
+  private static int countPlaceholders(final String pattern) {
+    if (pattern == null) {
+      return 0;
+    }
+    int placeholders = 0;
+    for (int pos = pattern.indexOf("{}"); pos >= 0; pos = pattern.indexOf("{}", pos + 2)) {
+      if (pos == 0 || pattern.charAt(pos - 1) != '\\') {
+        placeholders++;
+      }
+    }
+    return placeholders;
+  }
+
+  /**
+     Returns the pattern of the message.
+   */
+  public String getPattern() {
+    return pattern;
+  }
+
+  /**
+     Replaces the array passed to the constructor by a copy, so that
+     the caller may change or reuse it. Asynchronous appenders call
+     this method on the logging thread before leaving the rendering of
+     the message to their dispatcher thread.
+   */
+  public void copyArguments() {
+    if (arguments != null && !argumentsCopied && formatted == null) {
+      arguments = arguments.clone();
+      argumentsCopied = true;
+    }
+  }
+
+  /**
+     Returns the argument at <code>index</code>, which must be less
+     than {@link #getArgumentCount}.
+   */
+  public Object getArgument(final int index) {
+    if (arguments != null) {
+      return arguments[index];
+    }
+    return (index == 0) ? arg0 : arg1;
+  }
+
+  /**
+     Returns the number of arguments, without the throwable.
+   */
+  public int getArgumentCount() {
+    return count;
+  }
+
+  /**
+     Returns the arguments of the message, without the throwable.
+   */
+  public Object[] getArguments() {
+    Object[] copy = new Object[count];
+    for (int i = 0; i < count; i++) {
+      copy[i] = getArgument(i);
+    }
+    return copy;
+  }
+
+  /**
+     Returns the throwable passed as last argument, or
+     <code>null</code>.
+   */
+  public Throwable getThrowable() {
+    return throwable;
+  }
+
+  /**
+     Appends the formatted message to <code>buf</code>.
+   */
+  public void formatTo(final StringBuilder buf) {
+    if (pattern == null) {
+      buf.append((String) null);
+      return;
+    }
+    int length = pattern.length();
+    int next = 0;
+    int prev = 0;
+    for (int pos = pattern.indexOf('{'); pos >= 0; pos = pattern.indexOf('{', prev)) {
+      if (pos > 0 && pattern.charAt(pos - 1) == '\\') {
+        buf.append(pattern, prev, pos - 1).append('{');
+        prev = pos + 1;
+      } else if (pos + 1 < length && pattern.charAt(pos + 1) == '}') {
+        buf.append(pattern, prev, pos);
+        if (next < count) {
+          appendArgument(buf, getArgument(next++));
+        } else {
+          buf.append("{}");
+        }
+        prev = pos + 2;
+      } else {
+        buf.append(pattern, prev, pos + 1);
+        prev = pos + 1;
+      }
+    }
+    buf.append(pattern, prev, length);
+  }
+
+  private static void appendArgument(final StringBuilder buf, final Object arg) {
+    if (arg instanceof String) {
+      buf.append((String) arg);
+    } else if (arg instanceof Integer || arg instanceof Long
+               || arg instanceof Short || arg instanceof Byte) {
+      buf.append(((Number) arg).longValue());
+    } else {
+      buf.append(arg);
+    }
+  }
+
+  /**
+     Returns the formatted message. It is formatted once.
+   */
+  public String toString() {
+    String s = formatted;
+    if (s == null) {
+      StringBuilder buf = (StringBuilder) buffers.get();
+      if (buf == null) {
+        buf = new StringBuilder(256);
+      } else {
+        buffers.set(null);
+        buf.setLength(0);
+      }
+      formatTo(buf);
+      s = buf.toString();
+      if (buf.capacity() <= MAX_BUFFER_SIZE) {
+        buffers.set(buf);
+      }
+      formatted = s;
+    }
+    return s;
+  }
+}
@@ -0,0 +1,259 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.log4j.spi;
+
+import java.security.CodeSource;
+import java.time.Instant;
+
+import org.apache.log4j.Appender;
+import org.apache.log4j.AsyncAppender;
+import org.apache.log4j.Category;
+import org.apache.log4j.Level;
+import org.apache.log4j.Priority;
+import org.apache.log4j.RingBufferAsyncAppender;
+import org.apache.log4j.helpers.InstantDateFormat;
+import org.apache.log4j.helpers.OptionConverter;
+
+/**
+   A {@link LoggingEvent} which is recycled from one logging call to the
+   next on the same thread instead of being allocated for each call.
+
+   <p>This mode is off by default. It is turned on by setting the
+   <b>log4j.reusableEvents</b> system property to <code>true</code> or
+   by calling {@link #setEnabled}. When it is on, {@link
+   Category#callAppenders} receives the calling thread's instance of
+   this class, which is reset for every call, so that a pipeline made of
+   synchronous appenders which are done with the event when
+   <code>doAppend</code> returns does not allocate an event per call.
+
+   <p>Appenders which keep a reference to the event after
+   <code>doAppend</code> returns, for example to hand it over to
+   another thread or to buffer it, must keep the copy returned by
+   {@link #toImmutable(LoggingEvent)} instead. The appenders shipped
+   with log4j do so.
+
+   <p>If a thread logs while its event is in use, for instance from
+   within an appender, a regular <code>LoggingEvent</code> is used for
+   the nested call.
+
+   <p>The public final fields {@link #fqnOfCategoryClass}, {@link
+   #categoryName} and {@link #timeStamp} cannot be set on a reusable
+   event, which only answers through {@link #getFQNOfLoggerClass},
+   {@link #getLoggerName} and {@link #getTimeStamp}. A reusable event
+   is therefore only used when all the appenders it would reach are
+   {@link #accepts accepted}, that is are classes of log4j, as are
+   their layout, filters and error handler. Otherwise a regular
+   <code>LoggingEvent</code> is created, so that third party classes
+   reading the fields keep working.
+
+   <p>In steady state a reusable event allocates nothing, except a
+   {@link ThrowableInformation} when a throwable is logged. Whatever
+   the layout and the appender allocate comes on top; the
+   <code>reusableEvents</code> parameter of the file appender
+   benchmark measures the whole pipeline.
+
+   @since 1.2.18 */
+public class ReusableLoggingEvent extends LoggingEvent {
+
+  static final long serialVersionUID = 2387430867120476410L;
+
+  /**
+     System property which turns the mode on.
+   */
+  public static final String REUSABLE_EVENTS_KEY = "log4j.reusableEvents";
+
+  private static volatile boolean enabled = OptionConverter.toBoolean(
+      OptionConverter.getSystemProperty(REUSABLE_EVENTS_KEY, null), false);
+
+  /**
+     Whether a class is part of log4j, see {@link #accepts}.
+   */
+  private static final ClassValue LOG4J_CLASSES = new ClassValue() {
+    protected Object computeValue(Class type) {
+      return Boolean.valueOf(type.getName().startsWith("org.apache.log4j.")
+                             && sameCodeSource(type));
+    }
+  };
+
+  private static final ThreadLocal EVENTS = new ThreadLocal() {
+    protected Object initialValue() {
+      return new ReusableLoggingEvent();
+    }
+  };
+
+  /** Is the event currently passed to appenders? */
+  private transient boolean inUse;
+
+  private transient String fqnOfLoggerClass;
+  private transient String loggerName;
+  private transient long time;
+
+  private ReusableLoggingEvent() {
+    super(null, null, 0L, null, null, null, null, null, null, null);
+  }
+
+  /**
+     Returns <code>true</code> if events are reused.
+   */
+  public static boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+     Turns the reuse of events on or off.
+   */
+  public static void setEnabled(boolean value) {
+    enabled = value;
+  }
+
+  /**
+     Returns <code>true</code> if a reusable event may be passed to
+     <code>appender</code>: the appender, its layout, filters and error
+     handler are classes of log4j, which read events through their
+     getters. Appenders holding other appenders are only accepted if
+     they copy the event first, as the asynchronous appenders do.
+   */
+  public static boolean accepts(Appender appender) {
+    if (!isLog4jClass(appender)
+        || !isLog4jClass(appender.getLayout())
+        || !isLog4jClass(appender.getErrorHandler())) {
+      return false;
+    }
+    if (appender instanceof AppenderAttachable
+        && !(appender instanceof AsyncAppender)
+        && !(appender instanceof RingBufferAsyncAppender)) {
+      return false;
+    }
+    for (Filter f = appender.getFilter(); f != null; f = f.getNext()) {
+      if (!isLog4jClass(f)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isLog4jClass(Object o) {
+    return o == null || ((Boolean) LOG4J_CLASSES.get(o.getClass())).booleanValue();
+  }
+
+  /**
+     Is <code>type</code> loaded from the same place as log4j, rather
+     than from another library using the same packages?
+   */
+  private static boolean sameCodeSource(Class type) {
+    try {
+      CodeSource source = type.getProtectionDomain().getCodeSource();
+      CodeSource log4j = LoggingEvent.class.getProtectionDomain().getCodeSource();
+      return source == null ? log4j == null : source.equals(log4j);
+    } catch (SecurityException e) {
+      return false;
+    }
+  }
+
+  /**
+     Returns the calling thread's event initialized with the given
+     values, or <code>null</code> if that event is already in use. The
+     caller must call {@link #release} once the appenders are done with
+     the event.
+   */
+  public static ReusableLoggingEvent acquire(String fqnOfCategoryClass,
+                                             Category logger,
+                                             Priority level,
+                                             Object message,
+                                             Throwable throwable) {
+    ReusableLoggingEvent event = (ReusableLoggingEvent) EVENTS.get();
+    if (event.inUse) {
+      return null;
+    }
+    event.inUse = true;
+    int nanos = 0;
+    if (InstantDateFormat.isSubMillisecondInUse()) {
+      Instant now = Instant.now();
+      event.time = now.toEpochMilli();
+      nanos = now.getNano() % 1000000;
+    } else {
+      event.time = System.currentTimeMillis();
+    }
+    event.fqnOfLoggerClass = fqnOfCategoryClass;
+    event.loggerName = logger.getName();
+    event.reset(logger, nanos, level, message, throwable);
+    return event;
+  }
+
+  /**
+     Makes the event available to the next {@link #acquire} call of
+     the owning thread. References to the message and throwable are
+     dropped so they can be garbage collected.
+   */
+  public void release() {
+    fqnOfLoggerClass = null;
+    time = 0L;
+    reset(getLogger(), 0, null, null, null);
+    inUse = false;
+  }
+
+  public String getFQNOfLoggerClass() {
+    return fqnOfLoggerClass;
+  }
+
+  public String getLoggerName() {
+    return loggerName;
+  }
+
+  public long getTimeStamp() {
+    return time;
+  }
+
+  /**
+     Returns <code>event</code> itself unless it is a
+     <code>ReusableLoggingEvent</code>, in which case a regular
+     <code>LoggingEvent</code> carrying the same information is
+     returned. Appenders must call this method before retaining an event
+     beyond their <code>doAppend</code> call.
+   */
+  public static LoggingEvent toImmutable(LoggingEvent event) {
+    if (event instanceof ReusableLoggingEvent) {
+      return ((ReusableLoggingEvent) event).toImmutable();
+    }
+    return event;
+  }
+
+  /**
+     Creates a regular <code>LoggingEvent</code> with the values of
+     this one. The thread dependent fields (thread name, NDC, MDC) are
+     captured now, on the logging thread, as is the location
+     information if it has already been extracted.
+   */
+  public LoggingEvent toImmutable() {
+    LoggingEvent copy = new LoggingEvent(getFQNOfLoggerClass(),
+        getLogger(), getTimeStamp(), (Level) level, getMessage(),
+        getThreadName(), getThrowableInformation(), getNDC(),
+        locationInformationExists() ? getLocationInformation() : null,
+        null);
+    copy.nanoOfMillisecond = nanoOfMillisecond;
+    copyMDCTo(copy);
+    return copy;
+  }
+
+  /**
+     A reusable event is serialized as a regular event.
+   */
+  protected Object writeReplace() {
+    return toImmutable();
+  }
+}
@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.log4j.spi;
+
+/**
+   Decides when a rolling appender should roll over its file.
+
+   <p>The appender asks {@link #isTriggeringEvent} before writing each
+   event, so implementations should answer with a few comparisons and
+   do any expensive computation in {@link #fileOpened}, which is only
+   called when the appender starts a new file.
+
+   <p>Options are set as for any {@link OptionHandler}, and the
+   appender calls {@link #activateOptions} when it is activated itself.
+
+   @since 1.2.18
+ */
+public interface TriggeringPolicy extends OptionHandler {
+
+  /**
+     Tells the policy the appender started writing a file, after
+     activation or after a rollover. <code>time</code> is the time of
+     the oldest event the file may hold.
+   */
+  public void fileOpened(long time);
+
+  /**
+     Should the file be rolled over before writing <code>event</code>,
+     the file already holding <code>fileLength</code> bytes?
+   */
+  public boolean isTriggeringEvent(LoggingEvent event, long fileLength);
+}